@@ -0,0 +1,21 @@
+package com.mephi.task.gateway.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of {@link com.mephi.task.gateway.web.CoalescingFilter}; it applies to the routes of
+ * {@code gateway.cache.routes}.
+ *
+ * @param maxWait     how long a request waits for an identical one in flight before going upstream itself
+ * @param maxBodySize larger responses are not handed to waiting requests, they go upstream themselves
+ */
+@ConfigurationProperties(prefix = "gateway.coalesce")
+public record CoalescingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5s") Duration maxWait,
+        @DefaultValue("1MB") DataSize maxBodySize) {
+}
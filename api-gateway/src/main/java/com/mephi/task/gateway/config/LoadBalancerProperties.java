@@ -0,0 +1,23 @@
+package com.mephi.task.gateway.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the least-latency load balancer used for {@code lb://} routes.
+ *
+ * @param decay              time constant of the latency average; older samples fade out over about this long
+ * @param slowThreshold      an instance whose average latency exceeds this is ejected
+ * @param ejectAfterFailures consecutive connect errors, timeouts or 502/504 responses after which an instance is
+ *                           ejected
+ * @param ejectFor           how long an ejected instance gets no new requests
+ */
+@ConfigurationProperties(prefix = "gateway.lb")
+public record LoadBalancerProperties(
+        @DefaultValue("10s") Duration decay,
+        @DefaultValue("2s") Duration slowThreshold,
+        @DefaultValue("3") int ejectAfterFailures,
+        @DefaultValue("15s") Duration ejectFor) {
+}
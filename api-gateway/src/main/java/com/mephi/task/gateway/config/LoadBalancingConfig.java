@@ -0,0 +1,11 @@
+package com.mephi.task.gateway.config;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+import com.mephi.task.gateway.loadbalancer.LeastLatencyLoadBalancerConfiguration;
+
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LeastLatencyLoadBalancerConfiguration.class)
+public class LoadBalancingConfig {
+}
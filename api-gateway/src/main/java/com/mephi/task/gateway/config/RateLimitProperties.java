@@ -0,0 +1,37 @@
+package com.mephi.task.gateway.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Settings of {@link com.mephi.task.gateway.web.RateLimitFilter}.
+ *
+ * @param routes        limit per route id; routes not listed here are not limited
+ * @param sweepInterval how often buckets that have refilled completely are dropped
+ */
+@Validated
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        Map<String, @Valid Limit> routes,
+        @DefaultValue("30s") Duration sweepInterval) {
+
+    public RateLimitProperties {
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+    }
+
+    /**
+     * @param capacity          requests a client may send in a burst
+     * @param replenishRate     requests per second the bucket refills with
+     *                          (both must be positive; a zero rate would divide by zero in the filter)
+     */
+    public record Limit(@Positive int capacity, @Positive double replenishRate) {
+    }
+}
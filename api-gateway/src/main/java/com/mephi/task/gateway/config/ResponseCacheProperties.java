@@ -0,0 +1,27 @@
+package com.mephi.task.gateway.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of {@link com.mephi.task.gateway.web.ResponseCacheFilter}.
+ *
+ * @param routes        TTL per route id; GET responses of routes not listed here are never cached
+ * @param maxSize       total size of cached bodies; least recently used entries are evicted beyond it
+ * @param maxEntrySize  larger responses are passed through without being cached
+ */
+@ConfigurationProperties(prefix = "gateway.cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        Map<String, Duration> routes,
+        @DefaultValue("16MB") DataSize maxSize,
+        @DefaultValue("256KB") DataSize maxEntrySize) {
+
+    public ResponseCacheProperties {
+        routes = routes == null ? Map.of() : Map.copyOf(routes);
+    }
+}
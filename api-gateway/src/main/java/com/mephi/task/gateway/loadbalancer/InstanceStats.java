@@ -0,0 +1,191 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import com.mephi.task.gateway.config.LoadBalancerProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Latency and in-flight requests per backend instance, fed by {@link InstanceStatsFilter} and read by
+ * {@link LeastLatencyLoadBalancer}. Lives in the gateway context, so the per-service load balancer contexts share it.
+ * Instances are identified by service id and address, so re-registrations keep their history; instances that leave
+ * discovery are dropped with their meters by {@link #retain}.
+ */
+@Component
+public class InstanceStats {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceStats.class);
+    // a single slow request, e.g. a large admin operation, must not eject an instance
+    private static final int MIN_SAMPLES_FOR_SLOW = 5;
+    private static final List<String> METERS =
+            List.of("gateway.lb.latency", "gateway.lb.inflight", "gateway.lb.ejections");
+
+    private final LoadBalancerProperties properties;
+    private final MeterRegistry registry;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public InstanceStats(LoadBalancerProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    public Stats of(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), key -> register(new Stats(instance.getServiceId(),
+                instance.getHost() + ':' + instance.getPort(), weight(instance))));
+    }
+
+    /**
+     * Forgets the instances of {@code serviceId} that are not in {@code current}, removing their meters, so that
+     * scaled-down or moved instances do not stay in memory and in the metrics for good.
+     */
+    public void retain(String serviceId, List<ServiceInstance> current) {
+        Set<String> keys = current.stream().map(InstanceStats::key).collect(Collectors.toSet());
+        stats.forEach((key, s) -> {
+            if (s.serviceId.equalsIgnoreCase(serviceId) && !keys.contains(key) && stats.remove(key, s)) {
+                log.info("Forgetting {} instance {}: no longer registered", s.serviceId, s.address);
+                METERS.forEach(name -> registry.find(name).tag("service", s.serviceId).tag("instance", s.address)
+                        .meters().forEach(registry::remove));
+            }
+        });
+    }
+
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        long now = System.nanoTime();
+        stats.forEach((key, s) -> result.put(key, s.snapshot(now)));
+        return result;
+    }
+
+    private Stats register(Stats s) {
+        Gauge.builder("gateway.lb.latency", s, st -> st.averageNanos() / 1_000_000.0)
+                .tag("service", s.serviceId).tag("instance", s.address).baseUnit("milliseconds")
+                .description("Decaying average of the instance's response time").register(registry);
+        Gauge.builder("gateway.lb.inflight", s, st -> st.inflight.get())
+                .tag("service", s.serviceId).tag("instance", s.address)
+                .description("Requests currently sent to the instance").register(registry);
+        return s;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + '/' + instance.getHost() + ':' + instance.getPort();
+    }
+
+    private static double weight(ServiceInstance instance) {
+        String weight = instance.getMetadata() == null ? null : instance.getMetadata().get("weight");
+        try {
+            return weight == null ? 1.0 : Math.max(Double.parseDouble(weight), 0.01);
+        } catch (NumberFormatException e) {
+            return 1.0;
+        }
+    }
+
+    public record Snapshot(double averageMillis, int inflight, long requests, long failures, long ejectedForMillis) {
+    }
+
+    public final class Stats {
+
+        private final String serviceId;
+        private final String address;
+        private final double weight;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        // guarded by this
+        private double averageNanos;
+        private long updatedAt;
+        private int samples;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+
+        private Stats(String serviceId, String address, double weight) {
+            this.serviceId = serviceId;
+            this.address = address;
+            this.weight = weight;
+        }
+
+        /**
+         * Lower is better: average latency times the requests in flight including the new one, divided by the
+         * instance's {@code weight} metadata. An instance without samples yet scores lowest and gets probed first.
+         */
+        double score() {
+            return (averageNanos() + 1) * (inflight.get() + 1) / weight;
+        }
+
+        synchronized boolean ejected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        void started() {
+            inflight.incrementAndGet();
+            requests.increment();
+        }
+
+        void cancelled() {
+            inflight.decrementAndGet();
+        }
+
+        void completed(long latencyNanos, boolean failed) {
+            inflight.decrementAndGet();
+            if (failed) {
+                failures.increment();
+            }
+            long now = System.nanoTime();
+            String reason = null;
+            synchronized (this) {
+                if (ejected(now)) {
+                    // late responses of an ejected instance do not count against its fresh start
+                    return;
+                }
+                // weighted by elapsed time rather than count: the average reacts equally fast however busy the instance is
+                double w = updatedAt == 0 ? 0 : Math.exp(-(double) (now - updatedAt) / properties.decay().toNanos());
+                averageNanos = averageNanos * w + latencyNanos * (1 - w);
+                updatedAt = now;
+                samples++;
+                consecutiveFailures = failed ? consecutiveFailures + 1 : 0;
+                if (consecutiveFailures >= properties.ejectAfterFailures()) {
+                    reason = consecutiveFailures + " consecutive failures";
+                } else if (samples >= MIN_SAMPLES_FOR_SLOW && averageNanos > properties.slowThreshold().toNanos()) {
+                    reason = "average latency " + TimeUnit.NANOSECONDS.toMillis((long) averageNanos) + "ms";
+                }
+                if (reason != null) {
+                    // back with a clean history, so that it is probed again as soon as the ejection ends
+                    ejectedUntil = now + properties.ejectFor().toNanos();
+                    averageNanos = 0;
+                    updatedAt = 0;
+                    samples = 0;
+                    consecutiveFailures = 0;
+                }
+            }
+            if (reason != null) {
+                log.warn("Ejecting {} instance {} for {}: {}", serviceId, address, properties.ejectFor(), reason);
+                Counter.builder("gateway.lb.ejections").tag("service", serviceId).tag("instance", address)
+                        .description("Times the instance was taken out of rotation").register(registry).increment();
+            }
+        }
+
+        private synchronized double averageNanos() {
+            return averageNanos;
+        }
+
+        private synchronized Snapshot snapshot(long now) {
+            long ejectedFor = ejected(now) ? TimeUnit.NANOSECONDS.toMillis(ejectedUntil - now) : 0;
+            return new Snapshot(averageNanos / 1_000_000.0, inflight.get(), requests.sum(), failures.sum(), ejectedFor);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Measures each proxied request against the instance the load balancer chose. Runs right after the load balancer
+ * filter, so the chain completes once the backend's response headers arrive: the time is the backend's time to
+ * respond, not the time to stream the body to the client.
+ */
+@Component
+public class InstanceStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStats stats;
+
+    public InstanceStatsFilter(InstanceStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceStats.Stats instance = stats.of(chosen.getServer());
+        instance.started();
+        long start = System.nanoTime();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        return chain.filter(exchange).doOnError(error::set).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                instance.cancelled();
+                return;
+            }
+            instance.completed(System.nanoTime() - start,
+                    instanceFailure(error.get(), exchange.getResponse().getStatusCode()));
+        });
+    }
+
+    /**
+     * Whether the outcome points at the instance itself: it could not be connected to, did not answer in time, or
+     * answered 502/504 from a proxy in front of it. Other 5xx are not counted: a 503 is how an overloaded or
+     * draining service sheds load on purpose, and a 500 is an application error every instance would return alike.
+     */
+    static boolean instanceFailure(Throwable error, HttpStatusCode status) {
+        if (error == null) {
+            return isBadGatewayOrTimeout(status);
+        }
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ConnectException || e instanceof TimeoutException
+                    || e instanceof io.netty.handler.timeout.TimeoutException
+                    || (e instanceof ResponseStatusException rse && isBadGatewayOrTimeout(rse.getStatusCode()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBadGatewayOrTimeout(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.BAD_GATEWAY.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Picks the better of two random instances (power of two choices) by {@link InstanceStats.Stats#score}, i.e.
+ * average latency times requests in flight. Ejected instances are skipped unless every instance is ejected.
+ * Comparing two random instances instead of taking the global minimum keeps concurrent picks from all landing on
+ * the same instance before its in-flight count goes up.
+ */
+public class LeastLatencyLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LeastLatencyLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final InstanceStats stats;
+    // suppliers hand out the same cached list until discovery changes, so the stats are pruned about that often
+    private volatile List<ServiceInstance> lastSeen;
+
+    public LeastLatencyLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId, InstanceStats stats) {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::pick);
+    }
+
+    private Response<ServiceInstance> pick(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No instances available for service {}", serviceId);
+            return new EmptyResponse();
+        }
+        // not pruned on an empty list, which is more likely a discovery hiccup than every instance gone for good
+        if (instances != lastSeen) {
+            lastSeen = instances;
+            stats.retain(serviceId, instances);
+        }
+        long now = System.nanoTime();
+        List<ServiceInstance> healthy = instances.stream().filter(i -> !stats.of(i).ejected(now)).toList();
+        List<ServiceInstance> candidates = healthy.isEmpty() ? instances : healthy;
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(stats.of(a).score() <= stats.of(b).score() ? a : b);
+    }
+}
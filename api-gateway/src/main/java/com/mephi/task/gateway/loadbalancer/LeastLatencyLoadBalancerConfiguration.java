@@ -0,0 +1,24 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration. Deliberately not a {@code @Configuration}: it is instantiated in the
+ * child context of every service id, not by component scanning.
+ */
+public class LeastLatencyLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> leastLatencyLoadBalancer(Environment environment,
+                                                                         LoadBalancerClientFactory factory,
+                                                                         InstanceStats stats) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LeastLatencyLoadBalancer(factory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, stats);
+    }
+}
@@ -0,0 +1,26 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/loadbalancer}: current stats of every backend instance seen by the gateway.
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final InstanceStats stats;
+
+    public LoadBalancerEndpoint(InstanceStats stats) {
+        this.stats = stats;
+    }
+
+    @ReadOperation
+    public Map<String, InstanceStats.Snapshot> instances() {
+        return stats.snapshot();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mephi.task.gateway.security;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards the claims of a verified token as plain headers, signed with the secret shared with the services
+ * ({@code security.gateway.secret}), so that services in trust mode do not parse the JWT again. The signature covers
+ * all claim headers; the services reject them if it does not match or {@code X-Auth-Expires} has passed.
+ * <p>
+ * Without a secret nothing is signed and the services verify the JWT themselves; a secret shorter than
+ * {@value #MIN_SECRET_BYTES} bytes fails startup. The services verify the headers with their own copies of
+ * GatewayClaimsVerifier; the signature pinned in the tests keeps the three in step.
+ */
+@Component
+public class ClaimsSigner {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimsSigner.class);
+
+    public static final String SUBJECT = "X-Auth-Subject";
+    public static final String ROLE = "X-Auth-Role";
+    public static final String USER_ID = "X-Auth-User-Id";
+    public static final String VERSION = "X-Auth-Version";
+    public static final String EXPIRES = "X-Auth-Expires";
+    public static final String SIGNATURE = "X-Auth-Signature";
+    public static final List<String> HEADERS = List.of(SUBJECT, ROLE, USER_ID, VERSION, EXPIRES, SIGNATURE);
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKeySpec key;
+
+    public ClaimsSigner(@Value("${security.gateway.secret:}") String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0 && bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("security.gateway.secret is shorter than " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.key = bytes.length == 0 ? null : new SecretKeySpec(bytes, "HmacSHA256");
+        if (key == null) {
+            log.info("security.gateway.secret is not set: claim headers are not forwarded");
+        }
+    }
+
+    public void sign(JwtVerifier.VerifiedToken token, HttpHeaders headers) {
+        if (key == null) {
+            return;
+        }
+        String subject = URLEncoder.encode(token.subject() == null ? "" : token.subject(), StandardCharsets.UTF_8);
+        String userId = token.userId() == null ? "" : token.userId().toString();
+        String version = String.valueOf(token.version());
+        String expires = String.valueOf(token.expiresAt());
+        headers.set(SUBJECT, subject);
+        headers.set(ROLE, token.role());
+        headers.set(USER_ID, userId);
+        headers.set(VERSION, version);
+        headers.set(EXPIRES, expires);
+        headers.set(SIGNATURE, hmac(String.join("\n", subject, token.role(), userId, version, expires)));
+    }
+
+    private String hmac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
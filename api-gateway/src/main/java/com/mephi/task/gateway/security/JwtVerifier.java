@@ -0,0 +1,112 @@
+package com.mephi.task.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Verifies bearer tokens issued by booking-service. Verified tokens are cached by the SHA-256 of the token until
+ * their {@code exp}, as in the services' VerifiedTokenCache, so the signature is checked once per token.
+ * Revocation is not known here: the services still check the token version.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwtParser parser;
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final int maxSize;
+
+    public JwtVerifier(@Value("${security.jwt.secret}") String secret,
+                       @Value("${security.jwt.cache.max-size:10000}") int maxSize,
+                       MeterRegistry registry) {
+        byte[] candidate;
+        try {
+            candidate = Base64.getDecoder().decode(secret);
+        } catch (IllegalArgumentException e) {
+            candidate = secret.getBytes();
+        }
+        Key key = Keys.hmacShaKeyFor(candidate);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("security.jwt.cache").tag("result", "hit")
+                .description("Token verifications served from the cache").register(registry);
+        this.misses = Counter.builder("security.jwt.cache").tag("result", "miss")
+                .description("Token verifications that required signature check").register(registry);
+        Gauge.builder("security.jwt.cache.size", tokens, Map::size)
+                .description("Verified tokens currently cached").register(registry);
+    }
+
+    /**
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = tokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hits.increment();
+                return cached;
+            }
+            tokens.remove(key, cached);
+        }
+        misses.increment();
+        VerifiedToken verified = VerifiedToken.of(parser.parseClaimsJws(token).getBody());
+        if (verified.expiresAt() != Long.MAX_VALUE) {
+            // tokens without exp are still accepted but never cached, so the map cannot fill up with them
+            put(key, verified, now);
+        }
+        return verified;
+    }
+
+    private void put(String key, VerifiedToken verified, long now) {
+        if (tokens.size() >= maxSize) {
+            tokens.values().removeIf(t -> t.expiresAt() <= now);
+            Iterator<String> it = tokens.keySet().iterator();
+            while (tokens.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        tokens.put(key, verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record VerifiedToken(String subject, String role, Long userId, int version, long expiresAt) {
+
+        static VerifiedToken of(Claims claims) {
+            String role = Optional.ofNullable(claims.get("role", String.class)).orElse("USER");
+            Long userId = Optional.ofNullable(claims.get("uid", Number.class)).map(Number::longValue).orElse(null);
+            int version = Optional.ofNullable(claims.get("ver", Number.class)).map(Number::intValue).orElse(0);
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            return new VerifiedToken(claims.getSubject(), role, userId, version, expiresAt);
+        }
+    }
+}
@@ -1,29 +1,79 @@
 package com.mephi.task.gateway.web;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.gateway.security.ClaimsSigner;
+import com.mephi.task.gateway.security.JwtVerifier;
+
+import io.jsonwebtoken.JwtException;
 import reactor.core.publisher.Mono;
 
+/**
+ * Verifies the bearer token once at the edge and forwards its claims as signed headers ({@link ClaimsSigner}).
+ * Invalid or expired tokens are rejected with 401, except on {@code gateway.auth.optional-routes} (login,
+ * registration), where the stale header is dropped and the request continues anonymously. Claim headers sent by
+ * the client are always removed.
+ */
 @Component
 public class AuthForwardingFilter implements GlobalFilter, Ordered {
     private static final Logger log = LoggerFactory.getLogger(AuthForwardingFilter.class);
 
+    public static final String VERIFIED_TOKEN_ATTR = AuthForwardingFilter.class.getName() + ".verifiedToken";
+
+    private final JwtVerifier verifier;
+    private final ClaimsSigner signer;
+    private final ObjectMapper objectMapper;
+    private final List<String> optionalRoutes;
+
+    public AuthForwardingFilter(JwtVerifier verifier,
+                                ClaimsSigner signer,
+                                ObjectMapper objectMapper,
+                                @Value("${gateway.auth.optional-routes:}") List<String> optionalRoutes) {
+        this.verifier = verifier;
+        this.signer = signer;
+        this.objectMapper = objectMapper;
+        this.optionalRoutes = optionalRoutes;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> ClaimsSigner.HEADERS.forEach(headers::remove));
         String auth = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-        if (auth != null && !auth.isBlank()) {
-            // nothing to do; header will be proxied
-            return chain.filter(exchange);
+        if (auth == null || !auth.startsWith("Bearer ")) {
+            log.debug("No bearer token on request {} {}", exchange.getRequest().getMethod(), exchange.getRequest().getURI());
+            return chain.filter(exchange.mutate().request(request.build()).build());
         }
-        log.debug("No Authorization header on request {} {}", exchange.getRequest().getMethod(), exchange.getRequest().getURI());
-        return chain.filter(exchange);
+        JwtVerifier.VerifiedToken verified;
+        try {
+            verified = verifier.verify(auth.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (route != null && optionalRoutes.contains(route.getId())) {
+                request.headers(headers -> headers.remove(HttpHeaders.AUTHORIZATION));
+                return chain.filter(exchange.mutate().request(request.build()).build());
+            }
+            log.debug("Rejected token on {} {}: {}", exchange.getRequest().getMethod(), exchange.getRequest().getURI(), e.getMessage());
+            return GatewayErrors.write(exchange, HttpStatus.UNAUTHORIZED, "Invalid or expired token", objectMapper);
+        }
+        exchange.getAttributes().put(VERIFIED_TOKEN_ATTR, verified);
+        request.headers(headers -> signer.sign(verified, headers));
+        return chain.filter(exchange.mutate().request(request.build()).build());
     }
 
     @Override
@@ -31,8 +81,3 @@ public class AuthForwardingFilter implements GlobalFilter, Ordered {
         return -50;
     }
 }
-
-
-
-
-
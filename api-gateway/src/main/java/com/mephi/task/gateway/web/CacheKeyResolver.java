@@ -0,0 +1,56 @@
+package com.mephi.task.gateway.web;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.mephi.task.gateway.security.JwtVerifier;
+
+/**
+ * Identity of a GET request for sharing its response between callers: route, path, the query string with parameters
+ * sorted, and the caller's role as verified by {@link AuthForwardingFilter}.
+ * <p>
+ * Revocation is checked by the services only, so a revoked but unexpired token can still get shared responses of
+ * its role until it expires.
+ */
+@Component
+public class CacheKeyResolver {
+
+    private static final String ANONYMOUS = "ANONYMOUS";
+
+    public String key(ServerWebExchange exchange, Route route) {
+        JwtVerifier.VerifiedToken token = exchange.getAttribute(AuthForwardingFilter.VERIFIED_TOKEN_ATTR);
+        String role = token == null ? ANONYMOUS : token.role();
+        ServerHttpRequest request = exchange.getRequest();
+        return route.getId() + ' ' + request.getPath().value() + '?' + normalizedQuery(request) + ' ' + role;
+    }
+
+    /**
+     * Subject of the verified token, or {@code null} for anonymous requests.
+     */
+    public String subject(ServerWebExchange exchange) {
+        JwtVerifier.VerifiedToken token = exchange.getAttribute(AuthForwardingFilter.VERIFIED_TOKEN_ATTR);
+        return token == null ? null : token.subject();
+    }
+
+    private static String normalizedQuery(ServerHttpRequest request) {
+        StringJoiner query = new StringJoiner("&");
+        new TreeMap<>(request.getQueryParams()).forEach((name, values) -> {
+            List<String> sorted = new ArrayList<>(values);
+            sorted.replaceAll(v -> v == null ? "" : v);
+            sorted.sort(null);
+            for (String value : sorted) {
+                query.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + '=' + URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        });
+        return query.toString();
+    }
+}
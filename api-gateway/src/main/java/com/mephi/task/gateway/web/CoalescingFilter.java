@@ -0,0 +1,148 @@
+package com.mephi.task.gateway.web;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.mephi.task.gateway.config.CoalescingProperties;
+import com.mephi.task.gateway.config.ResponseCacheProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Single-flight for cacheable GETs: while a request is upstream, identical requests (same {@link CacheKeyResolver}
+ * key) wait for its response instead of sending their own. Runs after {@link ResponseCacheFilter}, so only cache
+ * misses get here.
+ * <p>
+ * Waiters go upstream themselves if the leader's response cannot be shared (not 200, {@code private}, too large),
+ * if the leader fails, if it varies on a request header they send differently, or after
+ * {@code gateway.coalesce.max-wait}.
+ */
+@Component
+public class CoalescingFilter implements GlobalFilter, Ordered {
+
+    private final CoalescingProperties properties;
+    private final ResponseCacheProperties cacheProperties;
+    private final CacheKeyResolver keys;
+    private final MeterRegistry registry;
+    private final Map<String, Sinks.One<SharedResponse>> inflight = new ConcurrentHashMap<>();
+
+    public CoalescingFilter(CoalescingProperties properties,
+                            ResponseCacheProperties cacheProperties,
+                            CacheKeyResolver keys,
+                            MeterRegistry registry) {
+        this.properties = properties;
+        this.cacheProperties = cacheProperties;
+        this.keys = keys;
+        this.registry = registry;
+        Gauge.builder("gateway.coalesce.inflight", inflight, Map::size)
+                .description("Upstream requests other requests can currently join").register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.enabled() || route == null || !cacheProperties.routes().containsKey(route.getId())
+                || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        String cacheControl = SharedResponse.cacheControl(request.getHeaders());
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")) {
+            return chain.filter(exchange);
+        }
+        String key = keys.key(exchange, route);
+        Sinks.One<SharedResponse> flight = Sinks.one();
+        Sinks.One<SharedResponse> leader = inflight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return follow(exchange, chain, route, leader);
+        }
+        ServerHttpResponse response = new LeaderResponse(exchange.getResponse(), request.getHeaders(), key, flight);
+        // an error or cancellation of the leader releases the waiters to go upstream
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> land(key, flight, null));
+    }
+
+    @Override
+    public int getOrder() {
+        // after ResponseCacheFilter, before NettyWriteResponseFilter (-1)
+        return -5;
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Route route,
+                              Sinks.One<SharedResponse> leader) {
+        return leader.asMono()
+                .timeout(properties.maxWait())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(TimeoutException.class, e -> Mono.just(Optional.empty()))
+                .flatMap(shared -> {
+                    boolean usable = shared.isPresent() && shared.get().servesRequest(exchange.getRequest().getHeaders());
+                    count(route, usable ? "coalesced" : "fallback");
+                    return usable ? shared.get().writeTo(exchange.getResponse()) : chain.filter(exchange);
+                });
+    }
+
+    private void land(String key, Sinks.One<SharedResponse> flight, SharedResponse response) {
+        inflight.remove(key, flight);
+        if (response != null) {
+            flight.tryEmitValue(response);
+        } else {
+            flight.tryEmitEmpty();
+        }
+    }
+
+    private void count(Route route, String result) {
+        Counter.builder("gateway.coalesce").tag("route", route.getId()).tag("result", result)
+                .description("Requests that waited for an identical request in flight").register(registry).increment();
+    }
+
+    private class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders requestHeaders;
+        private final String key;
+        private final Sinks.One<SharedResponse> flight;
+
+        LeaderResponse(ServerHttpResponse delegate, HttpHeaders requestHeaders, String key,
+                       Sinks.One<SharedResponse> flight) {
+            super(delegate);
+            this.requestHeaders = requestHeaders;
+            this.key = key;
+            this.flight = flight;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            long maxBytes = properties.maxBodySize().toBytes();
+            if (!SharedResponse.shareable(status, getHeaders()) || getHeaders().getContentLength() > maxBytes) {
+                land(key, flight, null);
+                return super.writeWith(body);
+            }
+            // a body over max-body-size is passed through, and the waiters are released to go upstream
+            return super.writeWith(SharedResponse.copy(body, maxBytes, content -> land(key, flight,
+                    content == null ? null : SharedResponse.of(status, getHeaders(), content, requestHeaders))));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mephi.task.gateway.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Error responses produced by the gateway itself, in the same shape as the services' ErrorDto.
+ */
+final class GatewayErrors {
+
+    private GatewayErrors() {
+    }
+
+    static Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String message, ObjectMapper objectMapper) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("timestamp", Instant.now().toString());
+        error.put("status", status.value());
+        error.put("error", status.getReasonPhrase());
+        error.put("message", message);
+        error.put("path", exchange.getRequest().getPath().value());
+        error.put("traceId", exchange.getRequest().getHeaders().getFirst(TraceFilter.TRACE_ID_HEADER));
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(error);
+        } catch (JsonProcessingException e) {
+            body = message.getBytes(StandardCharsets.UTF_8);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.mephi.task.gateway.web;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.gateway.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-client token buckets for the routes listed in {@code gateway.rate-limit.routes}. A client is the subject of
+ * the token verified by {@link AuthForwardingFilter}, otherwise the remote address; {@code X-Forwarded-For} is not
+ * trusted since the gateway is the edge.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be full again (GCRA), updated by CAS.
+ * A bucket whose time has passed is indistinguishable from a new one, so the sweep drops it without changing limits.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitProperties properties;
+    private final CacheKeyResolver keys;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           CacheKeyResolver keys,
+                           ObjectMapper objectMapper,
+                           MeterRegistry registry) {
+        this.properties = properties;
+        this.keys = keys;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        Gauge.builder("gateway.ratelimit.buckets", buckets, Map::size)
+                .description("Clients with a partially drained bucket").register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RateLimitProperties.Limit limit = route == null ? null : properties.routes().get(route.getId());
+        if (!properties.enabled() || limit == null) {
+            return chain.filter(exchange);
+        }
+        String subject = keys.subject(exchange);
+        String client = subject != null ? "user:" + subject : "ip:" + remoteAddress(exchange.getRequest());
+        long waitNanos = acquire(route.getId() + ' ' + client, limit);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            log.debug("rate limited route={} client={} retryAfter={}s", route.getId(), client, retryAfter);
+            Counter.builder("gateway.ratelimit.rejected").tag("route", route.getId())
+                    .description("Requests rejected with 429").register(registry).increment();
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            return GatewayErrors.write(exchange, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded", objectMapper);
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // after AuthForwardingFilter, before the cache: hits count against the limit too
+        return -20;
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 if the request may pass, otherwise nanoseconds until a token is available
+     */
+    private long acquire(String key, RateLimitProperties.Limit limit) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.replenishRate());
+        long burst = interval * Math.max(limit.capacity() - 1, 0);
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.get();
+            long start = fullAt - now < 0 ? now : fullAt;
+            if (start - now > burst) {
+                return start - now - burst;
+            }
+            if (bucket.compareAndSet(fullAt, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.sweep-interval:30s}")
+    public void sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        // a request racing with the removal may take its token from the dropped bucket: at most one extra request
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        log.debug("rate limit sweep removed={} remaining={}", before - buckets.size(), buckets.size());
+    }
+
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+}
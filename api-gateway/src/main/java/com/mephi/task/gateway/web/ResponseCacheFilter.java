@@ -0,0 +1,221 @@
+package com.mephi.task.gateway.web;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.mephi.task.gateway.config.ResponseCacheProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches successful GET responses of the routes listed in {@code gateway.cache.routes}, keyed by
+ * {@link CacheKeyResolver}, so responses are shared between users of the same role.
+ * <p>
+ * Upstream {@code Cache-Control} is honored ({@code no-store}, {@code no-cache}, {@code private} and
+ * {@code max-age}/{@code s-maxage}), and a matching {@code If-None-Match} on a hit is answered with 304. An entry
+ * is served only to requests that send the same values of the headers the response varies on; a request that differs
+ * goes upstream, and its response replaces the entry.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCacheProperties properties;
+    private final CacheKeyResolver keys;
+    private final MeterRegistry registry;
+    // access order gives LRU eviction; guarded by this
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    public ResponseCacheFilter(ResponseCacheProperties properties, CacheKeyResolver keys, MeterRegistry registry) {
+        this.properties = properties;
+        this.keys = keys;
+        this.registry = registry;
+        Gauge.builder("gateway.cache.entries", this, f -> f.size())
+                .description("Responses currently cached by the gateway").register(registry);
+        Gauge.builder("gateway.cache.bytes", this, f -> f.bytes())
+                .description("Size of the cached response bodies").register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Duration routeTtl = route == null ? null : properties.routes().get(route.getId());
+        if (!properties.enabled() || routeTtl == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        String requestCacheControl = SharedResponse.cacheControl(request.getHeaders());
+        if (requestCacheControl.contains("no-store")) {
+            count(route, "bypass");
+            return chain.filter(exchange);
+        }
+        String key = keys.key(exchange, route);
+        if (!requestCacheControl.contains("no-cache")) {
+            CachedResponse cached = get(key);
+            if (cached != null && cached.response().servesRequest(request.getHeaders())) {
+                count(route, "hit");
+                return serve(exchange, cached);
+            }
+        }
+        count(route, "miss");
+        ServerHttpResponse response = new CapturingResponse(exchange.getResponse(), request.getHeaders(), key, routeTtl);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // before NettyWriteResponseFilter (-1), so the response body passes through the decorator
+        return -10;
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_HEADER, "HIT");
+        response.getHeaders().set(HttpHeaders.AGE,
+                String.valueOf(Duration.between(cached.storedAt(), Instant.now()).toSeconds()));
+        String etag = cached.response().headers().getETag();
+        if (etag != null && exchange.getRequest().getHeaders().getIfNoneMatch().contains(etag)) {
+            cached.response().writeHeadersTo(response.getHeaders());
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        return cached.response().writeTo(response);
+    }
+
+    private synchronized CachedResponse get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.expiresAt().isBefore(Instant.now())) {
+            remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void put(String key, CachedResponse cached) {
+        remove(key);
+        entries.put(key, cached);
+        bytes += cached.response().body().length;
+        long maxBytes = properties.maxSize().toBytes();
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().response().body().length;
+            eldest.remove();
+        }
+    }
+
+    private void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.response().body().length;
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized long bytes() {
+        return bytes;
+    }
+
+    private void count(Route route, String result) {
+        Counter.builder("gateway.cache").tag("route", route.getId()).tag("result", result)
+                .description("Gateway response cache lookups").register(registry).increment();
+    }
+
+    /**
+     * TTL for the upstream response, or {@code null} if it must not be cached.
+     */
+    private Duration storableFor(HttpStatusCode status, HttpHeaders headers, Duration routeTtl) {
+        if (!SharedResponse.shareable(status, headers)) {
+            return null;
+        }
+        String cacheControl = SharedResponse.cacheControl(headers);
+        if (cacheControl.contains("no-cache")) {
+            return null;
+        }
+        if (headers.getContentLength() > properties.maxEntrySize().toBytes()) {
+            return null;
+        }
+        Duration ttl = routeTtl;
+        Long maxAge = directive(cacheControl, "s-maxage");
+        maxAge = maxAge != null ? maxAge : directive(cacheControl, "max-age");
+        if (maxAge != null && maxAge < ttl.toSeconds()) {
+            ttl = Duration.ofSeconds(maxAge);
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    private static Long directive(String cacheControl, String name) {
+        for (String part : cacheControl.split(",")) {
+            String directive = part.trim();
+            if (directive.startsWith(name + "=")) {
+                try {
+                    return Long.parseLong(directive.substring(name.length() + 1).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0L;
+                }
+            }
+        }
+        return null;
+    }
+
+    private record CachedResponse(SharedResponse response, Instant storedAt, Instant expiresAt) {
+    }
+
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders requestHeaders;
+        private final String key;
+        private final Duration routeTtl;
+
+        CapturingResponse(ServerHttpResponse delegate, HttpHeaders requestHeaders, String key, Duration routeTtl) {
+            super(delegate);
+            this.requestHeaders = requestHeaders;
+            this.key = key;
+            this.routeTtl = routeTtl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            Duration ttl = storableFor(status, getHeaders(), routeTtl);
+            if (ttl == null) {
+                return super.writeWith(body);
+            }
+            getHeaders().set(CACHE_HEADER, "MISS");
+            return super.writeWith(SharedResponse.copy(body, properties.maxEntrySize().toBytes(), content -> {
+                // null: the body turned out larger than max-entry-size and was passed through uncached
+                if (content != null) {
+                    Instant now = Instant.now();
+                    put(key, new CachedResponse(SharedResponse.of(status, getHeaders(), content, requestHeaders),
+                            now, now.plus(ttl)));
+                }
+            }));
+        }
+    }
+}
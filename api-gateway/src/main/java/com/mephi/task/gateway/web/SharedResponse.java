@@ -0,0 +1,138 @@
+package com.mephi.task.gateway.web;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Upstream response captured for callers other than the one it was produced for. Only representation headers are
+ * kept; hop-by-hop and per-caller headers are dropped.
+ * <p>
+ * The request headers named in {@code Vary} (and {@code Accept-Encoding} for an encoded body) are kept with the
+ * response, which is then handed only to requests that send the same values.
+ */
+record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, Map<String, List<String>> varying) {
+
+    private static final List<String> SHARED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.VARY);
+
+    static SharedResponse of(HttpStatusCode status, HttpHeaders upstream, byte[] body, HttpHeaders request) {
+        HttpHeaders headers = new HttpHeaders();
+        SHARED_HEADERS.forEach(name -> {
+            List<String> values = upstream.get(name);
+            if (values != null) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        Map<String, List<String>> varying = new LinkedHashMap<>();
+        varyingOn(upstream).forEach(name -> varying.put(name, List.copyOf(request.getOrEmpty(name))));
+        return new SharedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body, Map.copyOf(varying));
+    }
+
+    /**
+     * Whether the upstream response may be handed to other callers at all.
+     */
+    static boolean shareable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        String cacheControl = cacheControl(headers);
+        return !cacheControl.contains("no-store") && !cacheControl.contains("private")
+                && !varyingOn(headers).contains("*");
+    }
+
+    static String cacheControl(HttpHeaders headers) {
+        return String.join(",", headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase();
+    }
+
+    /**
+     * Passes {@code body} through unchanged while copying it, and hands the copy to {@code onComplete} once all of the
+     * body has passed. The copy is abandoned, and {@code onComplete} gets {@code null}, as soon as it would exceed
+     * {@code maxBytes}, so a large or unbounded body is never held in memory.
+     */
+    static Flux<DataBuffer> copy(Publisher<? extends DataBuffer> body, long maxBytes, Consumer<byte[]> onComplete) {
+        AtomicReference<ByteArrayOutputStream> copy = new AtomicReference<>(new ByteArrayOutputStream());
+        return Flux.<DataBuffer>from(body)
+                .doOnNext(buffer -> {
+                    ByteArrayOutputStream out = copy.get();
+                    int length = buffer.readableByteCount();
+                    if (out == null || out.size() + (long) length > maxBytes) {
+                        copy.set(null);
+                        return;
+                    }
+                    byte[] chunk = new byte[length];
+                    int position = buffer.readPosition();
+                    buffer.read(chunk);
+                    buffer.readPosition(position);
+                    out.writeBytes(chunk);
+                })
+                .doOnComplete(() -> {
+                    ByteArrayOutputStream out = copy.get();
+                    onComplete.accept(out == null ? null : out.toByteArray());
+                });
+    }
+
+    /**
+     * Whether {@code request} sends the same values as the request this response was produced for, for every header
+     * the response varies on.
+     */
+    boolean servesRequest(HttpHeaders request) {
+        return varying.entrySet().stream()
+                .allMatch(e -> e.getValue().equals(request.getOrEmpty(e.getKey())));
+    }
+
+    Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        writeHeadersTo(response.getHeaders());
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    void writeHeadersTo(HttpHeaders target) {
+        headers.forEach((name, values) -> {
+            if (HttpHeaders.VARY.equalsIgnoreCase(name)) {
+                // the gateway's CORS processing has already added its own Vary values to the response
+                values.stream()
+                        .flatMap(value -> Arrays.stream(value.split(",")))
+                        .map(String::trim)
+                        .filter(v -> !v.isEmpty() && !target.getVary().contains(v))
+                        .forEach(v -> target.add(HttpHeaders.VARY, v));
+            } else {
+                target.put(name, values);
+            }
+        });
+    }
+
+    private static Set<String> varyingOn(HttpHeaders headers) {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (String value : headers.getOrEmpty(HttpHeaders.VARY)) {
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            // an encoded body must only reach clients that accept that encoding, whether or not upstream says so
+            names.add(HttpHeaders.ACCEPT_ENCODING);
+        }
+        return names;
+    }
+}
@@ -1,44 +1,142 @@
 package com.mephi.task.gateway.web;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import reactor.core.publisher.Mono;
 
+/**
+ * Continues the caller's W3C {@code traceparent} (or legacy {@code X-Trace-Id}) or starts a new trace, forwards both
+ * headers to the backend with a new span id, returns {@code X-Trace-Id} to the client and records the request
+ * latency per route, method and status in {@code gateway.requests}.
+ * <p>
+ * Ids come from {@link ThreadLocalRandom}: they only need to be unique, not unpredictable, and a shared
+ * SecureRandom would be contended under load.
+ * <p>
+ * booking-service and hotel-service parse the headers with copies of these helpers in their {@code TraceContext}
+ * (the modules share no code); keep them in step, so that a trace the gateway continues is continued there too.
+ */
 @Component
 public class TraceFilter implements GlobalFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(TraceFilter.class);
     public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private final MeterRegistry registry;
+
+    public TraceFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String headerTraceId = exchange.getRequest().getHeaders().getFirst(TRACE_ID_HEADER);
-        final String traceId = (headerTraceId == null || headerTraceId.isBlank())
-                ? UUID.randomUUID().toString()
-                : headerTraceId;
-        ServerHttpRequest mutated = exchange.getRequest().mutate()
+        ServerHttpRequest request = exchange.getRequest();
+        String[] parent = parseTraceparent(request.getHeaders().getFirst(TRACEPARENT_HEADER));
+        String traceId;
+        String flags = "01";
+        if (parent != null) {
+            traceId = parent[1];
+            flags = parent[3];
+        } else {
+            // a UUID without dashes is a valid W3C trace id, so ids of older clients are kept
+            String headerTraceId = request.getHeaders().getFirst(TRACE_ID_HEADER);
+            String normalized = headerTraceId == null ? "" : headerTraceId.replace("-", "").toLowerCase();
+            traceId = isTraceId(normalized) ? normalized : newTraceId();
+        }
+        String traceparent = "00-" + traceId + '-' + newSpanId() + '-' + flags;
+        ServerHttpRequest mutated = request.mutate()
                 .header(TRACE_ID_HEADER, traceId)
+                .header(TRACEPARENT_HEADER, traceparent)
                 .build();
-        ServerWebExchange mutatedEx = exchange.mutate().request(mutated).build();
-        log.info("gateway incoming {} {} traceId={}", mutated.getMethod(), mutated.getURI(), traceId);
-        // Trace ID передается в запрос к backend-сервису и логируется
-        // Не добавляем в response, так как в WebFlux ответ может быть уже закоммичен
-        return chain.filter(mutatedEx);
+        // set right before the response is committed, so it is there however the response is produced
+        exchange.getResponse().beforeCommit(() -> {
+            exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, traceId);
+            return Mono.empty();
+        });
+        long start = System.nanoTime();
+        return chain.filter(exchange.mutate().request(mutated).build())
+                .doFinally(signal -> record(exchange, traceId, System.nanoTime() - start));
     }
 
     @Override
     public int getOrder() {
         return -100;
     }
-}
 
+    private void record(ServerWebExchange exchange, String traceId, long nanos) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        String routeId = route == null ? "none" : route.getId();
+        String statusCode = status == null ? "CANCELLED" : String.valueOf(status.value());
+        String method = exchange.getRequest().getMethod().name();
+        Timer.builder("gateway.requests")
+                .tag("route", routeId).tag("method", method).tag("status", statusCode)
+                .description("Time from the gateway receiving a request to the response completing")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        log.info("gateway {} {} route={} status={} {}ms traceId={}", method, exchange.getRequest().getURI().getRawPath(),
+                routeId, statusCode, nanos / 1_000_000, traceId);
+    }
+
+    /**
+     * @return version, trace id, parent id and flags, or {@code null} if the header is absent or malformed
+     */
+    private static String[] parseTraceparent(String header) {
+        if (header == null) {
+            return null;
+        }
+        String[] parts = header.trim().split("-");
+        if (parts.length < 4 || parts[0].length() != 2 || "ff".equals(parts[0]) || !isTraceId(parts[1])
+                || !isHex(parts[2], 16) || !isHex(parts[3], 2)) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static boolean isTraceId(String value) {
+        return isHex(value, 32) && !value.equals("0".repeat(32));
+    }
 
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hex(random.nextLong()) + hex(random.nextLong() | 1);
+    }
+
+    private static String newSpanId() {
+        return hex(ThreadLocalRandom.current().nextLong() | 1);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
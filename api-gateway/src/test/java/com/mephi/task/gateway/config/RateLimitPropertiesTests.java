@@ -0,0 +1,34 @@
+package com.mephi.task.gateway.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+class RateLimitPropertiesTests {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(Config.class);
+
+    @Test
+    @DisplayName("Нулевые или отрицательные capacity и replenish-rate не дают приложению запуститься")
+    void non_positive_limits_fail_startup() {
+        runner.withPropertyValues("gateway.rate-limit.routes.hotel-service.capacity=10",
+                        "gateway.rate-limit.routes.hotel-service.replenish-rate=0")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("gateway.rate-limit.routes.hotel-service.capacity=-1",
+                        "gateway.rate-limit.routes.hotel-service.replenish-rate=5")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("gateway.rate-limit.routes.hotel-service.capacity=10",
+                        "gateway.rate-limit.routes.hotel-service.replenish-rate=0.5")
+                .run(context -> assertThat(context.getBean(RateLimitProperties.class).routes().get("hotel-service"))
+                        .isEqualTo(new RateLimitProperties.Limit(10, 0.5)));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,32 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.net.ConnectException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+
+class InstanceStatsFilterTests {
+
+    @Test
+    @DisplayName("Против инстанса считаются ошибки соединения, таймауты и 502/504, но не 503 и 500")
+    void only_connect_errors_timeouts_and_bad_gateway_count_against_the_instance() {
+        assertThat(InstanceStatsFilter.instanceFailure(new ConnectException("Connection refused"), null)).isTrue();
+        assertThat(InstanceStatsFilter.instanceFailure(new RuntimeException(ReadTimeoutException.INSTANCE), null))
+                .isTrue();
+        assertThat(InstanceStatsFilter.instanceFailure(
+                new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Response took longer than timeout"), null))
+                .isTrue();
+        assertThat(InstanceStatsFilter.instanceFailure(null, HttpStatus.BAD_GATEWAY)).isTrue();
+        assertThat(InstanceStatsFilter.instanceFailure(null, HttpStatus.GATEWAY_TIMEOUT)).isTrue();
+
+        assertThat(InstanceStatsFilter.instanceFailure(null, HttpStatus.SERVICE_UNAVAILABLE)).isFalse();
+        assertThat(InstanceStatsFilter.instanceFailure(null, HttpStatus.INTERNAL_SERVER_ERROR)).isFalse();
+        assertThat(InstanceStatsFilter.instanceFailure(null, HttpStatus.OK)).isFalse();
+        assertThat(InstanceStatsFilter.instanceFailure(new IllegalStateException("filter bug"), null)).isFalse();
+    }
+}
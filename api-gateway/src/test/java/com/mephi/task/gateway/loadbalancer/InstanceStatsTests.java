@@ -0,0 +1,113 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.mephi.task.gateway.config.LoadBalancerProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InstanceStatsTests {
+
+    private static final ServiceInstance FIRST = instance("hotel-service", "10.0.0.1");
+    private static final ServiceInstance SECOND = instance("hotel-service", "10.0.0.2");
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Старые замеры затухают за время decay: при большом decay среднее почти не сдвигается, при малом берётся последний")
+    void average_decays_with_elapsed_time() {
+        InstanceStats slow = stats(Duration.ofHours(1));
+        respond(slow, FIRST, 100, false);
+        respond(slow, FIRST, 500, false);
+        assertThat(slow.snapshot().get("hotel-service/10.0.0.1:8080").averageMillis()).isCloseTo(100, within(1.0));
+
+        InstanceStats fast = stats(Duration.ofNanos(1));
+        respond(fast, FIRST, 100, false);
+        respond(fast, FIRST, 500, false);
+        assertThat(fast.snapshot().get("hotel-service/10.0.0.1:8080").averageMillis()).isCloseTo(500, within(1.0));
+    }
+
+    @Test
+    @DisplayName("Инстанс исключается после eject-after-failures ошибок подряд и возвращается через eject-for с чистой историей")
+    void consecutive_failures_eject_until_eject_for_passes() {
+        InstanceStats stats = stats(Duration.ofSeconds(10));
+        InstanceStats.Stats instance = stats.of(FIRST);
+        respond(stats, FIRST, 10, true);
+        respond(stats, FIRST, 10, true);
+        // a success in between starts the count over
+        respond(stats, FIRST, 10, false);
+        respond(stats, FIRST, 10, true);
+        respond(stats, FIRST, 10, true);
+        assertThat(instance.ejected(System.nanoTime())).isFalse();
+
+        respond(stats, FIRST, 10, true);
+        long now = System.nanoTime();
+        assertThat(instance.ejected(now)).isTrue();
+        assertThat(stats.snapshot().get("hotel-service/10.0.0.1:8080").ejectedForMillis()).isPositive();
+        // responses still in flight when it was ejected do not count again
+        respond(stats, FIRST, 10, true);
+        assertThat(registry.get("gateway.lb.ejections").counter().count()).isEqualTo(1);
+
+        assertThat(instance.ejected(now + TimeUnit.SECONDS.toNanos(15) + 1)).isFalse();
+        assertThat(stats.snapshot().get("hotel-service/10.0.0.1:8080").averageMillis()).isZero();
+    }
+
+    @Test
+    @DisplayName("Медленный инстанс исключается только после нескольких замеров выше slow-threshold")
+    void slow_instance_is_ejected_after_enough_samples() {
+        InstanceStats stats = stats(Duration.ofHours(1));
+        InstanceStats.Stats instance = stats.of(FIRST);
+        for (int i = 0; i < 4; i++) {
+            respond(stats, FIRST, 3000, false);
+        }
+        assertThat(instance.ejected(System.nanoTime())).isFalse();
+
+        respond(stats, FIRST, 3000, false);
+        assertThat(instance.ejected(System.nanoTime())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Инстансы, пропавшие из discovery, забываются вместе с метриками; другие сервисы не затрагиваются")
+    void instances_missing_from_discovery_are_forgotten() {
+        InstanceStats stats = stats(Duration.ofSeconds(10));
+        ServiceInstance booking = instance("booking-service", "10.0.0.3");
+        List.of(FIRST, SECOND, booking).forEach(instance -> respond(stats, instance, 10, false));
+
+        stats.retain("HOTEL-SERVICE", List.of(FIRST));
+
+        assertThat(stats.snapshot()).containsOnlyKeys("hotel-service/10.0.0.1:8080", "booking-service/10.0.0.3:8080");
+        assertThat(registry.find("gateway.lb.latency").tag("instance", "10.0.0.2:8080").gauge()).isNull();
+        assertThat(registry.find("gateway.lb.inflight").tag("instance", "10.0.0.2:8080").gauge()).isNull();
+        assertThat(registry.find("gateway.lb.latency").tag("instance", "10.0.0.1:8080").gauge()).isNotNull();
+    }
+
+    private InstanceStats stats(Duration decay) {
+        return new InstanceStats(new LoadBalancerProperties(decay, Duration.ofSeconds(2), 3, Duration.ofSeconds(15)),
+                registry);
+    }
+
+    static void respond(InstanceStats stats, ServiceInstance instance, long millis, boolean failed) {
+        InstanceStats.Stats s = stats.of(instance);
+        s.started();
+        s.completed(TimeUnit.MILLISECONDS.toNanos(millis), failed);
+    }
+
+    static ServiceInstance instance(String serviceId, String host) {
+        return new DefaultServiceInstance(serviceId + '-' + host, serviceId, host, 8080, false);
+    }
+}
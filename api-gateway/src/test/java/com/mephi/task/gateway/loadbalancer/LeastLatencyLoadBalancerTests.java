@@ -0,0 +1,87 @@
+package com.mephi.task.gateway.loadbalancer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import com.mephi.task.gateway.config.LoadBalancerProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LeastLatencyLoadBalancerTests {
+
+    private static final ServiceInstance FAST = InstanceStatsTests.instance("hotel-service", "10.0.0.1");
+    private static final ServiceInstance MEDIUM = InstanceStatsTests.instance("hotel-service", "10.0.0.2");
+    private static final ServiceInstance SLOW = InstanceStatsTests.instance("hotel-service", "10.0.0.3");
+
+    private InstanceStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new InstanceStats(new LoadBalancerProperties(Duration.ofHours(1), Duration.ofSeconds(2), 3,
+                Duration.ofSeconds(15)), new SimpleMeterRegistry());
+        InstanceStatsTests.respond(stats, FAST, 10, false);
+        InstanceStatsTests.respond(stats, MEDIUM, 100, false);
+        InstanceStatsTests.respond(stats, SLOW, 1000, false);
+    }
+
+    @Test
+    @DisplayName("Из двух случайных инстансов выбирается лучший: самый медленный не выбирается никогда, средний иногда")
+    void better_of_two_random_instances_is_picked() {
+        LeastLatencyLoadBalancer balancer = balancer(FAST, MEDIUM, SLOW);
+
+        Map<ServiceInstance, Integer> picks = pick(balancer, 300);
+
+        assertThat(picks).doesNotContainKey(SLOW);
+        // unlike the global minimum, the second best still gets a share of the traffic
+        assertThat(picks.get(MEDIUM)).isPositive().isLessThan(picks.get(FAST));
+    }
+
+    @Test
+    @DisplayName("Исключённые инстансы пропускаются, пока не исключены все")
+    void ejected_instances_are_skipped_unless_all_are() {
+        for (int i = 0; i < 3; i++) {
+            InstanceStatsTests.respond(stats, FAST, 10, true);
+        }
+        assertThat(pick(balancer(FAST, SLOW), 20)).containsOnlyKeys(SLOW);
+
+        for (int i = 0; i < 3; i++) {
+            InstanceStatsTests.respond(stats, SLOW, 10, true);
+        }
+        assertThat(pick(balancer(FAST, SLOW), 20)).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Инстансы, которых больше нет в списке discovery, удаляются из статистики")
+    void instances_leaving_discovery_are_forgotten() {
+        pick(balancer(FAST, MEDIUM), 1);
+
+        assertThat(stats.snapshot()).containsOnlyKeys("hotel-service/10.0.0.1:8080", "hotel-service/10.0.0.2:8080");
+    }
+
+    private LeastLatencyLoadBalancer balancer(ServiceInstance... instances) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("supplier", ServiceInstanceListSuppliers.from("hotel-service", instances));
+        return new LeastLatencyLoadBalancer(beans.getBeanProvider(ServiceInstanceListSupplier.class),
+                "hotel-service", stats);
+    }
+
+    private static Map<ServiceInstance, Integer> pick(LeastLatencyLoadBalancer balancer, int times) {
+        Map<ServiceInstance, Integer> picks = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            picks.merge(balancer.choose(new DefaultRequest<>()).block().getServer(), 1, Integer::sum);
+        }
+        return picks;
+    }
+}
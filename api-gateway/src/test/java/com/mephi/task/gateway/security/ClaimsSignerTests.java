@@ -0,0 +1,41 @@
+package com.mephi.task.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+class ClaimsSignerTests {
+
+    /**
+     * Pinned in the GatewayClaimsVerifier tests of booking-service and hotel-service as well: a change of the header
+     * format on either side breaks one of them.
+     */
+    static final String SECRET = "test-gateway-secret-at-least-32-bytes!";
+    static final String SIGNATURE = "Ob_ONPXEK_kENZ3W4mMwxbXRV4-nKyw12cuvDoE9ySQ";
+
+    @Test
+    @DisplayName("Заголовки с claims подписываются так же, как их проверяют сервисы")
+    void claims_are_signed_in_the_format_the_services_verify() {
+        HttpHeaders headers = new HttpHeaders();
+        new ClaimsSigner(SECRET).sign(new JwtVerifier.VerifiedToken("alice smith", "USER", 7L, 2, 4102444800000L), headers);
+
+        assertThat(headers.getFirst(ClaimsSigner.SUBJECT)).isEqualTo("alice+smith");
+        assertThat(headers.getFirst(ClaimsSigner.ROLE)).isEqualTo("USER");
+        assertThat(headers.getFirst(ClaimsSigner.USER_ID)).isEqualTo("7");
+        assertThat(headers.getFirst(ClaimsSigner.VERSION)).isEqualTo("2");
+        assertThat(headers.getFirst(ClaimsSigner.EXPIRES)).isEqualTo("4102444800000");
+        assertThat(headers.getFirst(ClaimsSigner.SIGNATURE)).isEqualTo(SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("Без секрета заголовки не подписываются, слишком короткий секрет не даёт запуститься")
+    void missing_secret_disables_signing_and_short_secret_fails() {
+        HttpHeaders headers = new HttpHeaders();
+        new ClaimsSigner("").sign(new JwtVerifier.VerifiedToken("alice", "USER", 7L, 2, 4102444800000L), headers);
+        assertThat(headers).isEmpty();
+
+        assertThatThrownBy(() -> new ClaimsSigner("too-short-secret")).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package com.mephi.task.gateway.web;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.gateway.security.ClaimsSigner;
+import com.mephi.task.gateway.security.JwtVerifier;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class AuthForwardingFilterTests {
+
+    private static final String JWT_SECRET = "test-jwt-secret-please-change-32B-min-1234";
+    private static final String GATEWAY_SECRET = "test-gateway-secret-at-least-32-bytes!";
+
+    private AuthForwardingFilter filter;
+    private AtomicReference<ServerWebExchange> forwarded;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        JwtVerifier verifier = new JwtVerifier(JWT_SECRET, 100, new SimpleMeterRegistry());
+        filter = new AuthForwardingFilter(verifier, new ClaimsSigner(GATEWAY_SECRET), new ObjectMapper(),
+                List.of("booking-auth"));
+        forwarded = new AtomicReference<>();
+        chain = exchange -> {
+            forwarded.set(exchange);
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    @DisplayName("Заголовки X-Auth-*, присланные клиентом, удаляются")
+    void client_claim_headers_are_stripped() {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/bookings");
+        ClaimsSigner.HEADERS.forEach(name -> request.header(name, "forged"));
+
+        filter.filter(exchange(request, "booking-service"), chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        assertThat(ClaimsSigner.HEADERS).noneMatch(headers::containsKey);
+        assertThat(forwarded.get().<Object>getAttribute(AuthForwardingFilter.VERIFIED_TOKEN_ATTR)).isNull();
+    }
+
+    @Test
+    @DisplayName("Проверенный токен пересылается дальше как подписанные заголовки вместо присланных клиентом")
+    void verified_token_is_forwarded_as_signed_claims() {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("alice", "USER"))
+                .header(ClaimsSigner.ROLE, "ADMIN");
+
+        filter.filter(exchange(request, "booking-service"), chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        assertThat(headers.get(ClaimsSigner.ROLE)).containsExactly("USER");
+        assertThat(headers.getFirst(ClaimsSigner.SUBJECT)).isEqualTo("alice");
+        assertThat(headers.getFirst(ClaimsSigner.USER_ID)).isEqualTo("7");
+        assertThat(headers.getFirst(ClaimsSigner.SIGNATURE)).isNotBlank();
+        // the services still receive the token, to forward it on their own calls
+        assertThat(headers.getFirst(HttpHeaders.AUTHORIZATION)).startsWith("Bearer ");
+        JwtVerifier.VerifiedToken verified = forwarded.get().getAttribute(AuthForwardingFilter.VERIFIED_TOKEN_ATTR);
+        assertThat(verified.role()).isEqualTo("USER");
+    }
+
+    @Test
+    @DisplayName("Неверный токен на обычном маршруте получает 401 и не уходит в сервис")
+    void invalid_token_is_rejected_on_regular_routes() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/bookings")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("alice", "USER") + "x"), "booking-service");
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getBodyAsString().block()).contains("Invalid or expired token");
+        assertThat(forwarded.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("На booking-auth неверный токен отбрасывается и запрос идёт анонимно")
+    void invalid_token_is_dropped_on_optional_routes() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/user/auth")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer expired.or.broken")
+                .header(ClaimsSigner.SUBJECT, "forged"), "booking-auth");
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        assertThat(headers.containsKey(HttpHeaders.AUTHORIZATION)).isFalse();
+        assertThat(ClaimsSigner.HEADERS).noneMatch(headers::containsKey);
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String routeId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(routeId).uri(URI.create("http://localhost")).predicate(e -> true).build());
+        return exchange;
+    }
+
+    private static String token(String subject, String role) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("role", role)
+                .claim("uid", 7)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
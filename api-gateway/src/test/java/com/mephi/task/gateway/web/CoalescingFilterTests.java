@@ -0,0 +1,146 @@
+package com.mephi.task.gateway.web;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.mephi.task.gateway.config.CoalescingProperties;
+import com.mephi.task.gateway.config.ResponseCacheProperties;
+import com.mephi.task.gateway.security.JwtVerifier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CoalescingFilterTests {
+
+    private static final Route ROUTE = Route.async().id("hotel-service").uri(URI.create("http://localhost"))
+            .predicate(exchange -> true).build();
+
+    private SimpleMeterRegistry registry;
+    private AtomicInteger upstreamCalls;
+    private Sinks.Empty<Void> upstreamDone;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        upstreamCalls = new AtomicInteger();
+        upstreamDone = Sinks.empty();
+    }
+
+    @Test
+    @DisplayName("Одновременные одинаковые GET получают ответ одного запроса к сервису")
+    void identical_concurrent_requests_share_one_upstream_call() throws Exception {
+        CoalescingFilter filter = filter(Duration.ofSeconds(5));
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange exchange = get("USER");
+            exchanges.add(exchange);
+            done.add(filter.filter(exchange, slowUpstream("rooms")).toFuture());
+        }
+        upstreamDone.tryEmitEmpty();
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(upstreamCalls).hasValue(1);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("rooms");
+        }
+        assertThat(registry.get("gateway.coalesce").tag("result", "coalesced").counter().count()).isEqualTo(4);
+        assertThat(registry.get("gateway.coalesce.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Ожидающий запрос идёт к сервису сам, если ответ не пришёл за max-wait")
+    void waiter_goes_upstream_after_max_wait() throws Exception {
+        CoalescingFilter filter = filter(Duration.ofMillis(100));
+        CompletableFuture<Void> leader = filter.filter(get("USER"), slowUpstream("late")).toFuture();
+
+        MockServerWebExchange waiter = get("USER");
+        filter.filter(waiter, upstream("own")).block(Duration.ofSeconds(5));
+
+        assertThat(waiter.getResponse().getBodyAsString().block()).isEqualTo("own");
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(registry.get("gateway.coalesce").tag("result", "fallback").counter().count()).isEqualTo(1);
+        upstreamDone.tryEmitEmpty();
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Запросы с разными ролями и без токена не объединяются")
+    void different_roles_are_not_merged() throws Exception {
+        CoalescingFilter filter = filter(Duration.ofSeconds(5));
+        CompletableFuture<Void> user = filter.filter(get("USER"), slowUpstream("for users")).toFuture();
+
+        MockServerWebExchange admin = get("ADMIN");
+        filter.filter(admin, upstream("for admins")).block(Duration.ofSeconds(1));
+        MockServerWebExchange anonymous = get(null);
+        filter.filter(anonymous, upstream("for everyone")).block(Duration.ofSeconds(1));
+
+        assertThat(admin.getResponse().getBodyAsString().block()).isEqualTo("for admins");
+        assertThat(anonymous.getResponse().getBodyAsString().block()).isEqualTo("for everyone");
+        assertThat(upstreamCalls).hasValue(3);
+        upstreamDone.tryEmitEmpty();
+        user.get(5, TimeUnit.SECONDS);
+    }
+
+    private CoalescingFilter filter(Duration maxWait) {
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties(true,
+                Map.of("hotel-service", Duration.ofSeconds(30)), DataSize.ofMegabytes(1), DataSize.ofKilobytes(1));
+        return new CoalescingFilter(new CoalescingProperties(true, maxWait, DataSize.ofKilobytes(1)),
+                cacheProperties, new CacheKeyResolver(), registry);
+    }
+
+    /**
+     * Answers only once {@link #upstreamDone} completes, so that the requests made meanwhile find it in flight.
+     */
+    private GatewayFilterChain slowUpstream(String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            return upstreamDone.asMono().then(Mono.defer(() -> respond(exchange, body)));
+        };
+    }
+
+    private GatewayFilterChain upstream(String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            return respond(exchange, body);
+        };
+    }
+
+    private static Mono<Void> respond(ServerWebExchange exchange, String body) {
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        return exchange.getResponse().writeWith(Mono.just(
+                exchange.getResponse().bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static MockServerWebExchange get(String role) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rooms?hotelId=1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        if (role != null) {
+            exchange.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR,
+                    new JwtVerifier.VerifiedToken(role.toLowerCase(), role, 1L, 0, Long.MAX_VALUE));
+        }
+        return exchange;
+    }
+}
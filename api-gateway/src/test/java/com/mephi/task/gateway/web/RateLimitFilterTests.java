@@ -0,0 +1,166 @@
+package com.mephi.task.gateway.web;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.discovery.DiscoveryLocatorProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.gateway.config.RateLimitProperties;
+import com.mephi.task.gateway.security.JwtVerifier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class RateLimitFilterTests {
+
+    private SimpleMeterRegistry registry;
+    private AtomicInteger passed;
+    private GatewayFilterChain upstream;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        passed = new AtomicInteger();
+        upstream = exchange -> {
+            passed.incrementAndGet();
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    @DisplayName("Пачка сверх capacity получает 429 с Retry-After, остальные запросы проходят")
+    void burst_over_capacity_is_rejected_with_retry_after() {
+        RateLimitFilter filter = filter(Map.of("hotel-service", new RateLimitProperties.Limit(3, 0.5)));
+
+        for (int i = 0; i < 3; i++) {
+            filter.filter(request("hotel-service", "alice", "10.0.0.1"), upstream).block();
+        }
+        MockServerWebExchange rejected = request("hotel-service", "alice", "10.0.0.1");
+        filter.filter(rejected, upstream).block();
+
+        assertThat(passed).hasValue(3);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        // one token every two seconds
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejected.getResponse().getBodyAsString().block()).contains("Rate limit exceeded");
+        assertThat(registry.get("gateway.ratelimit.rejected").tag("route", "hotel-service").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Лимит считается отдельно для каждого клиента: по subject токена, без токена по адресу")
+    void limits_are_kept_per_client() {
+        RateLimitFilter filter = filter(Map.of("hotel-service", new RateLimitProperties.Limit(1, 0.1)));
+
+        filter.filter(request("hotel-service", "alice", "10.0.0.1"), upstream).block();
+        filter.filter(request("hotel-service", "alice", "10.0.0.2"), upstream).block();
+        assertThat(passed).hasValue(1);
+
+        // another user behind the same address, and two anonymous addresses
+        filter.filter(request("hotel-service", "bob", "10.0.0.1"), upstream).block();
+        filter.filter(request("hotel-service", null, "10.0.0.1"), upstream).block();
+        filter.filter(request("hotel-service", null, "10.0.0.2"), upstream).block();
+        assertThat(passed).hasValue(4);
+
+        filter.filter(request("hotel-service", null, "10.0.0.2"), upstream).block();
+        assertThat(passed).hasValue(4);
+        // routes without a limit are not counted
+        filter.filter(request("booking-events", "alice", "10.0.0.1"), upstream).block();
+        assertThat(passed).hasValue(5);
+    }
+
+    @Test
+    @DisplayName("Логин по настройкам application.yml ограничен строже, чем остальные запросы к booking-service")
+    void booking_auth_is_limited_tighter_than_booking_service() {
+        RateLimitProperties properties = applicationYml().bind("gateway.rate-limit", RateLimitProperties.class).get();
+        RateLimitProperties.Limit auth = properties.routes().get("booking-auth");
+        RateLimitProperties.Limit bookings = properties.routes().get("booking-service");
+        assertThat(auth.capacity()).isLessThan(bookings.capacity());
+        assertThat(auth.replenishRate()).isLessThan(bookings.replenishRate());
+
+        RateLimitFilter filter = new RateLimitFilter(properties, new CacheKeyResolver(), new ObjectMapper(), registry);
+        for (int i = 0; i < auth.capacity() + 1; i++) {
+            filter.filter(request("booking-auth", null, "10.0.0.1"), upstream).block();
+        }
+        assertThat(passed).hasValue(auth.capacity());
+
+        // the same client may still use the rest of the API
+        MockServerWebExchange other = request("booking-service", null, "10.0.0.1");
+        filter.filter(other, upstream).block();
+        assertThat(other.getResponse().getStatusCode()).isNull();
+        assertThat(passed).hasValue(auth.capacity() + 1);
+    }
+
+    @Test
+    @DisplayName("Путь через discovery locator (/booking-service/api/user/auth) не маршрутизируется в обход лимита логина")
+    void discovery_locator_paths_do_not_bypass_the_limits() {
+        Binder yml = applicationYml();
+        assertThat(yml.bind("spring.cloud.gateway.discovery.locator", DiscoveryLocatorProperties.class)
+                .map(DiscoveryLocatorProperties::isEnabled).orElse(false)).isFalse();
+
+        GatewayProperties gateway = yml.bind("spring.cloud.gateway", GatewayProperties.class).get();
+        RateLimitProperties limits = yml.bind("gateway.rate-limit", RateLimitProperties.class).get();
+        // no explicit route matches the locator path, so the gateway answers 404
+        assertThat(routeFor(gateway, "/booking-service/api/user/auth")).isNull();
+        assertThat(routeFor(gateway, "/api/user/auth")).isEqualTo("booking-auth");
+        assertThat(limits.routes()).containsKey(routeFor(gateway, "/api/user/auth"));
+    }
+
+    private RateLimitFilter filter(Map<String, RateLimitProperties.Limit> routes) {
+        return new RateLimitFilter(new RateLimitProperties(true, routes, Duration.ofSeconds(30)),
+                new CacheKeyResolver(), new ObjectMapper(), registry);
+    }
+
+    private static Binder applicationYml() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        return new Binder(new MapConfigurationPropertySource(yaml.getObject()));
+    }
+
+    // the first route whose Path predicate matches, the same order the gateway tries them in
+    private static String routeFor(GatewayProperties gateway, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        return gateway.getRoutes().stream()
+                .filter(route -> route.getPredicates().stream()
+                        .filter(predicate -> predicate.getName().equals("Path"))
+                        .flatMap(predicate -> predicate.getArgs().values().stream())
+                        .anyMatch(pattern -> PathPatternParser.defaultInstance.parse(pattern).matches(container)))
+                .map(RouteDefinition::getId)
+                .findFirst().orElse(null);
+    }
+
+    private static MockServerWebExchange request(String routeId, String subject, String address) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/anything")
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(routeId).uri(URI.create("http://localhost")).predicate(e -> true).build());
+        if (subject != null) {
+            exchange.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR,
+                    new JwtVerifier.VerifiedToken(subject, "USER", 1L, 0, Long.MAX_VALUE));
+        }
+        return exchange;
+    }
+}
@@ -0,0 +1,208 @@
+package com.mephi.task.gateway.web;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+
+import com.mephi.task.gateway.config.ResponseCacheProperties;
+import com.mephi.task.gateway.security.JwtVerifier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ResponseCacheFilterTests {
+
+    private static final Route ROUTE = Route.async().id("hotel-service").uri(URI.create("http://localhost"))
+            .predicate(exchange -> true).build();
+
+    private SimpleMeterRegistry registry;
+    private ResponseCacheFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        upstreamCalls = new AtomicInteger();
+        filter = filter(DataSize.ofKilobytes(16));
+    }
+
+    @Test
+    @DisplayName("Повторный GET отдаётся из кэша: X-Cache MISS, затем HIT без обращения к сервису")
+    void second_request_is_served_from_cache() {
+        MockServerWebExchange first = get("/api/hotels", "USER");
+        filter.filter(first, upstream(headers -> { }, "hotels")).block();
+        MockServerWebExchange second = get("/api/hotels", "USER");
+        filter.filter(second, upstream(headers -> { }, "changed")).block();
+
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("hotels");
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(registry.get("gateway.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ответы с no-store и private не кэшируются, запрос с no-store идёт мимо кэша")
+    void no_store_and_private_are_not_cached() {
+        for (String cacheControl : new String[] {"no-store", "private, max-age=60"}) {
+            filter.filter(get("/api/hotels/" + cacheControl.length(), "USER"),
+                    upstream(headers -> headers.setCacheControl(cacheControl), "x")).block();
+            filter.filter(get("/api/hotels/" + cacheControl.length(), "USER"),
+                    upstream(headers -> headers.setCacheControl(cacheControl), "x")).block();
+        }
+        assertThat(upstreamCalls).hasValue(4);
+
+        filter.filter(get("/api/hotels", "USER"), upstream(headers -> { }, "x")).block();
+        MockServerWebExchange bypass = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+                .header(HttpHeaders.CACHE_CONTROL, "no-store"));
+        bypass.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        bypass.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR, token("USER"));
+        filter.filter(bypass, upstream(headers -> { }, "x")).block();
+        assertThat(upstreamCalls).hasValue(6);
+    }
+
+    @Test
+    @DisplayName("If-None-Match с ETag закэшированного ответа получает 304 без тела")
+    void matching_if_none_match_gets_304() {
+        filter.filter(get("/api/hotels", "USER"), upstream(headers -> headers.setETag("\"v1\""), "hotels")).block();
+
+        MockServerWebExchange conditional = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""));
+        conditional.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        conditional.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR, token("USER"));
+        filter.filter(conditional, upstream(headers -> { }, "x")).block();
+
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(conditional.getResponse().getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(conditional.getResponse().getBodyAsString().block()).isEmpty();
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Ответ для одной роли не отдаётся другой: роль входит в ключ кэша")
+    void roles_do_not_share_entries() {
+        filter.filter(get("/api/hotels", "USER"), upstream(headers -> { }, "for users")).block();
+        MockServerWebExchange admin = get("/api/hotels", "ADMIN");
+        filter.filter(admin, upstream(headers -> { }, "for admins")).block();
+        MockServerWebExchange anonymous = get("/api/hotels", null);
+        filter.filter(anonymous, upstream(headers -> { }, "for everyone")).block();
+        MockServerWebExchange user = get("/api/hotels", "USER");
+        filter.filter(user, upstream(headers -> { }, "x")).block();
+
+        assertThat(admin.getResponse().getBodyAsString().block()).isEqualTo("for admins");
+        assertThat(anonymous.getResponse().getBodyAsString().block()).isEqualTo("for everyone");
+        assertThat(user.getResponse().getBodyAsString().block()).isEqualTo("for users");
+        assertThat(upstreamCalls).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("При превышении max-size вытесняется давно не использованный ответ")
+    void least_recently_used_entry_is_evicted_by_size() {
+        registry = new SimpleMeterRegistry();
+        filter = filter(DataSize.ofBytes(250));
+        String body = "x".repeat(100);
+        filter.filter(get("/api/hotels/1", "USER"), upstream(headers -> { }, body)).block();
+        filter.filter(get("/api/hotels/2", "USER"), upstream(headers -> { }, body)).block();
+        // touch 1, so that 2 is the least recently used
+        filter.filter(get("/api/hotels/1", "USER"), upstream(headers -> { }, body)).block();
+        filter.filter(get("/api/hotels/3", "USER"), upstream(headers -> { }, body)).block();
+        assertThat(upstreamCalls).hasValue(3);
+        assertThat(registry.get("gateway.cache.bytes").gauge().value()).isEqualTo(200);
+
+        filter.filter(get("/api/hotels/1", "USER"), upstream(headers -> { }, body)).block();
+        assertThat(upstreamCalls).hasValue(3);
+        filter.filter(get("/api/hotels/2", "USER"), upstream(headers -> { }, body)).block();
+        assertThat(upstreamCalls).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Тело без Content-Length больше max-entry-size передаётся клиенту целиком и не кэшируется")
+    void oversized_body_is_passed_through_uncached() {
+        String chunk = "y".repeat(700);
+        GatewayFilterChain chunked = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().writeWith(Flux.just(chunk, chunk).map(s ->
+                    exchange.getResponse().bufferFactory().wrap(s.getBytes(StandardCharsets.UTF_8))));
+        };
+        MockServerWebExchange first = get("/api/hotels", "USER");
+        filter.filter(first, chunked).block();
+        filter.filter(get("/api/hotels", "USER"), chunked).block();
+
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo(chunk + chunk);
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(registry.get("gateway.cache.entries").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Сжатый ответ отдаётся из кэша только клиентам с тем же Accept-Encoding, Content-Encoding сохраняется")
+    void encoded_response_is_served_only_for_the_same_accept_encoding() {
+        Consumer<HttpHeaders> gzip = headers -> headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        filter.filter(withAcceptEncoding("gzip"), upstream(gzip, "compressed")).block();
+
+        MockServerWebExchange same = withAcceptEncoding("gzip");
+        filter.filter(same, upstream(headers -> { }, "x")).block();
+        assertThat(same.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(upstreamCalls).hasValue(1);
+
+        MockServerWebExchange identity = get("/api/hotels", "USER");
+        filter.filter(identity, upstream(headers -> { }, "plain")).block();
+        assertThat(identity.getResponse().getBodyAsString().block()).isEqualTo("plain");
+        assertThat(identity.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private ResponseCacheFilter filter(DataSize maxSize) {
+        ResponseCacheProperties properties = new ResponseCacheProperties(true,
+                Map.of("hotel-service", Duration.ofSeconds(30)), maxSize, DataSize.ofKilobytes(1));
+        return new ResponseCacheFilter(properties, new CacheKeyResolver(), registry);
+    }
+
+    private GatewayFilterChain upstream(Consumer<HttpHeaders> headers, String body) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            headers.accept(exchange.getResponse().getHeaders());
+            return exchange.getResponse().writeWith(Mono.just(
+                    exchange.getResponse().bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    private MockServerWebExchange withAcceptEncoding(String encoding) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+                .header(HttpHeaders.ACCEPT_ENCODING, encoding));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        exchange.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR, token("USER"));
+        return exchange;
+    }
+
+    private static MockServerWebExchange get(String path, String role) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        if (role != null) {
+            exchange.getAttributes().put(AuthForwardingFilter.VERIFIED_TOKEN_ATTR, token(role));
+        }
+        return exchange;
+    }
+
+    private static JwtVerifier.VerifiedToken token(String role) {
+        return new JwtVerifier.VerifiedToken(role.toLowerCase(), role, 1L, 0, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,96 @@
+package com.mephi.task.gateway.web;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TraceFilterTests {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    private SimpleMeterRegistry registry;
+    private TraceFilter filter;
+    private AtomicReference<HttpHeaders> forwarded;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new TraceFilter(registry);
+        forwarded = new AtomicReference<>();
+        chain = exchange -> {
+            forwarded.set(exchange.getRequest().getHeaders());
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    @Test
+    @DisplayName("Trace id из traceparent клиента продолжается: новый span id, флаги сохраняются, X-Trace-Id в ответе")
+    void incoming_traceparent_is_continued() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+                .header(TraceFilter.TRACEPARENT_HEADER, "00-" + TRACE_ID + "-" + PARENT_ID + "-00"));
+
+        filter.filter(exchange, chain).block();
+
+        String traceparent = forwarded.get().getFirst(TraceFilter.TRACEPARENT_HEADER);
+        assertThat(traceparent).matches("00-" + TRACE_ID + "-[0-9a-f]{16}-00").doesNotContain(PARENT_ID);
+        assertThat(forwarded.get().getFirst(TraceFilter.TRACE_ID_HEADER)).isEqualTo(TRACE_ID);
+        assertThat(exchange.getResponse().getHeaders().getFirst(TraceFilter.TRACE_ID_HEADER)).isEqualTo(TRACE_ID);
+    }
+
+    @Test
+    @DisplayName("Без traceparent берётся X-Trace-Id старых клиентов, некорректный traceparent игнорируется")
+    void legacy_trace_id_is_used_without_a_valid_traceparent() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+                .header(TraceFilter.TRACEPARENT_HEADER, "ff-" + TRACE_ID + "-" + PARENT_ID + "-01")
+                .header(TraceFilter.TRACE_ID_HEADER, "0AF76519-16CD-43DD-8448-EB211C80319C"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(forwarded.get().getFirst(TraceFilter.TRACEPARENT_HEADER))
+                .matches("00-0af7651916cd43dd8448eb211c80319c-[0-9a-f]{16}-01");
+        assertThat(exchange.getResponse().getHeaders().getFirst(TraceFilter.TRACE_ID_HEADER))
+                .isEqualTo("0af7651916cd43dd8448eb211c80319c");
+
+        // neither header: a new trace is started
+        MockServerWebExchange fresh = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels"));
+        filter.filter(fresh, chain).block();
+        String traceId = fresh.getResponse().getHeaders().getFirst(TraceFilter.TRACE_ID_HEADER);
+        assertThat(traceId).matches("[0-9a-f]{32}").isNotEqualTo("0".repeat(32));
+        assertThat(forwarded.get().getFirst(TraceFilter.TRACEPARENT_HEADER)).startsWith("00-" + traceId + "-");
+    }
+
+    @Test
+    @DisplayName("gateway.requests записывается с тегами route, method и status")
+    void request_latency_is_recorded_per_route_method_and_status() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/booking"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("booking-service").uri(URI.create("http://localhost")).predicate(e -> true).build());
+        filter.filter(exchange, chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/unknown")),
+                e -> e.getResponse().setComplete()).block();
+
+        assertThat(registry.get("gateway.requests")
+                .tag("route", "booking-service").tag("method", "POST").tag("status", "200")
+                .timer().count()).isEqualTo(1);
+        // no route matched and no status set
+        assertThat(registry.get("gateway.requests")
+                .tag("route", "none").tag("method", "GET").tag("status", "CANCELLED")
+                .timer().count()).isEqualTo(1);
+    }
+}
@@ -2,7 +2,7 @@ package com.mephi.task.booking;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import com.mephi.task.booking.domain.User;
@@ -16,13 +16,12 @@ import lombok.RequiredArgsConstructor;
 public class BookingDataLoader implements CommandLineRunner {
 
     private final UserRepository userRepository;
+    private final PasswordEncoder encoder;
 
     @Override
     public void run(String... args) {
         if (userRepository.count() > 0) return;
 
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
         User admin = new User();
         admin.setUsername("admin");
         admin.setPassword(encoder.encode("admin"));
@@ -0,0 +1,83 @@
+package com.mephi.task.booking.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts an {@link AdaptiveConcurrencyLimiter} in front of every Feign client method. Each method has its own limiter,
+ * so a slow endpoint cannot use up the capacity of the others. When a limit is reached the call fails immediately with
+ * {@link HotelOverloadedException} instead of queueing behind the slow calls.
+ */
+public class ConcurrencyLimitCapability implements Capability {
+
+    private final MeterRegistry registry;
+    private final Settings settings;
+    private final Map<String, Limited> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitCapability(MeterRegistry registry, Settings settings) {
+        this.registry = registry;
+        this.settings = settings;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String method = methodName(request);
+        Limited limited = limiters.computeIfAbsent(method, this::create);
+        if (!limited.limiter().tryAcquire()) {
+            limited.rejected().increment();
+            throw new HotelOverloadedException(method);
+        }
+        long start = System.nanoTime();
+        try {
+            Response response = client.execute(request, options);
+            if (response.status() >= 500) {
+                limited.limiter().onDropped();
+            } else {
+                limited.limiter().onSuccess(System.nanoTime() - start);
+            }
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            limited.limiter().onDropped();
+            throw ex;
+        }
+    }
+
+    private Limited create(String method) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings.initialLimit(), settings.minLimit(),
+                settings.maxLimit(), settings.latencyThreshold().toNanos(), settings.backoffRatio());
+        Gauge.builder("hotel.client.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit").tag("method", method).register(registry);
+        Gauge.builder("hotel.client.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls in flight").tag("method", method).register(registry);
+        Counter rejected = Counter.builder("hotel.client.rejected")
+                .description("Calls rejected because the concurrency limit was reached").tag("method", method).register(registry);
+        return new Limited(limiter, rejected);
+    }
+
+    private static String methodName(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().methodMetadata() != null) {
+            return request.requestTemplate().methodMetadata().method().getName();
+        }
+        return "unknown";
+    }
+
+    public record Settings(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+    }
+
+    private record Limited(AdaptiveConcurrencyLimiter limiter, Counter rejected) {
+    }
+}
@@ -11,9 +11,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import com.mephi.task.booking.client.dto.AvailabilityRequest;
+import com.mephi.task.booking.client.dto.BatchAvailabilityRequest;
+import com.mephi.task.booking.client.dto.BatchAvailabilityResponse;
+import com.mephi.task.booking.client.dto.HoldDto;
 import com.mephi.task.booking.client.dto.RoomDto;
 
-@FeignClient(name = "hotel-service", url = "http://localhost:8082")
+@FeignClient(name = "hotel-service")
 public interface HotelClient {
 
     @GetMapping("/api/rooms/internal/recommend")
@@ -23,8 +26,22 @@ public interface HotelClient {
     @PostMapping("/api/rooms/{id}/confirm-availability")
     void confirmAvailability(@PathVariable("id") Long roomId, @RequestBody AvailabilityRequest request);
 
+    // 409 with the per-room outcomes in the body if any room could not be held
+    @PostMapping("/internal/rooms/confirm-batch")
+    BatchAvailabilityResponse confirmBatch(@RequestBody BatchAvailabilityRequest request);
+
+    // moves the hold of request.requestId to the new dates; 409 if they are taken, 404 if there is no such hold
+    @PostMapping("/internal/rooms/{id}/modify-hold")
+    void modifyHold(@PathVariable("id") Long roomId, @RequestBody AvailabilityRequest request);
+
     @PostMapping("/internal/rooms/{id}/release")
     void release(@PathVariable("id") Long roomId, @RequestParam("requestId") String requestId);
+
+    // holds ending on or after from, ordered by requestId; after is the last requestId of the previous page
+    @GetMapping("/internal/rooms/holds")
+    List<HoldDto> holds(@RequestParam("from") @feign.Param(expander = com.mephi.task.booking.config.LocalDateParamExpander.class) LocalDate from,
+                        @RequestParam("after") String after,
+                        @RequestParam("size") int size);
 }
 
 
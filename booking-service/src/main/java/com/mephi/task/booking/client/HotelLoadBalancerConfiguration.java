@@ -0,0 +1,22 @@
+package com.mephi.task.booking.client;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load-balancer settings for hotel-service. Deliberately not a {@code @Configuration}: it is registered through
+ * {@code @LoadBalancerClient} and must only live in the hotel-service child context.
+ */
+public class HotelLoadBalancerConfiguration {
+
+    @Bean
+    public LeastOutstandingRequestsLoadBalancer hotelLoadBalancer(Environment environment,
+                                                                  LoadBalancerClientFactory factory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ObjectProvider<ServiceInstanceListSupplier> suppliers = factory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+        return new LeastOutstandingRequestsLoadBalancer(suppliers);
+    }
+}
@@ -0,0 +1,11 @@
+package com.mephi.task.booking.client;
+
+/**
+ * Thrown instead of calling hotel-service when the concurrency limit of the method is reached.
+ */
+public class HotelOverloadedException extends RuntimeException {
+
+    public HotelOverloadedException(String method) {
+        super("hotel-service concurrency limit reached for " + method);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mephi.task.booking.client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends each request to the instance with the fewest requests in flight from this process.
+ * <p>
+ * The in-flight count is maintained through the {@link LoadBalancerLifecycle} callbacks, which the Feign load-balancing
+ * client invokes around every call. Ties are broken starting from a random position, so idle instances share the load
+ * evenly. A slow replica accumulates outstanding requests and is therefore picked less often.
+ */
+public class LeastOutstandingRequestsLoadBalancer
+        implements ReactorServiceInstanceLoadBalancer, LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final Map<String, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+
+    public LeastOutstandingRequestsLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers) {
+        this.suppliers = suppliers;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable();
+        if (supplier == null) {
+            return Mono.just(new EmptyResponse());
+        }
+        return supplier.get(request).next().map(this::select);
+    }
+
+    private Response<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        int offset = ThreadLocalRandom.current().nextInt(instances.size());
+        ServiceInstance best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < instances.size(); i++) {
+            ServiceInstance candidate = instances.get((offset + i) % instances.size());
+            int count = counter(candidate).get();
+            if (count < bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return new DefaultResponse(best);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse.hasServer()) {
+            counter(lbResponse.getServer()).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse != null && lbResponse.hasServer()) {
+            counter(lbResponse.getServer()).updateAndGet(c -> Math.max(c - 1, 0));
+        }
+    }
+
+    public int outstanding(ServiceInstance instance) {
+        return counter(instance).get();
+    }
+
+    private AtomicInteger counter(ServiceInstance instance) {
+        return outstanding.computeIfAbsent(instance.getHost() + ":" + instance.getPort(), k -> new AtomicInteger());
+    }
+}
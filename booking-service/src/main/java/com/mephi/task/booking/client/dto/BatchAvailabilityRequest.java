@@ -0,0 +1,23 @@
+package com.mephi.task.booking.client.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BatchAvailabilityRequest {
+    private List<Item> items;
+
+    @Data
+    @AllArgsConstructor
+    public static class Item {
+        private Long roomId;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private String requestId;
+        private String bookingId;
+    }
+}
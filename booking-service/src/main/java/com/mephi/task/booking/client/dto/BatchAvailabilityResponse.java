@@ -0,0 +1,22 @@
+package com.mephi.task.booking.client.dto;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BatchAvailabilityResponse {
+    private boolean confirmed;
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    public static class Result {
+        private Long roomId;
+        private String requestId;
+        // HELD, AVAILABLE, CONFLICT or NOT_FOUND
+        private String outcome;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mephi.task.booking.client.dto;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+
+@Data
+public class HoldDto {
+    private String requestId;
+    private String bookingId;
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
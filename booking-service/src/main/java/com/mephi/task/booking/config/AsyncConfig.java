@@ -0,0 +1,96 @@
+package com.mephi.task.booking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.mephi.task.booking.monitoring.TraceContext;
+
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor bookingConfirmationExecutor(
+            @Value("${booking.async.pool-size:4}") int poolSize,
+            @Value("${booking.async.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("booking-confirm-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        // bounded queue: when full, submissions are rejected instead of piling up
+        executor.setQueueCapacity(queueCapacity);
+        // the confirmation continues the trace of the request that created the booking
+        executor.setTaskDecorator(TraceContext::wrap);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * BCrypt runs here rather than on Tomcat workers, so a burst of logins cannot take over the request threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${security.password.pool-size:2}") int poolSize,
+            @Value("${security.password.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Writes booking events to SSE streams; a single thread keeps events of one booking in order.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor bookingEventsExecutor(
+            @Value("${booking.events.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("booking-events-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Resolves stuck PENDING bookings; the pool size bounds how many hotel-service calls a sweep makes at once.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pendingSweepExecutor(
+            @Value("${booking.pending-sweep.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pending-sweep-");
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor reconciliationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("reconciliation-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        return executor;
+    }
+
+    /**
+     * Bulk admin jobs run one at a time: they are rare, and running them in parallel would only compete for
+     * the database and the password hashing pool.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor userBulkExecutor(
+            @Value("${booking.admin.bulk.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("user-bulk-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+}
@@ -8,12 +8,16 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.MDC;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.mephi.task.booking.monitoring.TraceContext;
+import com.mephi.task.booking.security.ServiceTokenProvider;
+
 import feign.RequestInterceptor;
 
 @Configuration
@@ -21,12 +25,33 @@ public class FeignConfig {
 
     private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_DATE;
 
+    /**
+     * Forwards the caller's token to hotel-service. {@code /internal/**} endpoints, and calls made outside a user
+     * request, get the service token instead.
+     */
     @Bean
-    public RequestInterceptor authForwardingInterceptor() {
+    public RequestInterceptor authForwardingInterceptor(ServiceTokenProvider serviceToken) {
         return template -> {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication != null && authentication.getCredentials() instanceof String token) {
+            if (!template.path().startsWith("/internal/")
+                    && authentication != null && authentication.getCredentials() instanceof String token) {
                 template.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            } else {
+                template.header(HttpHeaders.AUTHORIZATION, "Bearer " + serviceToken.token());
+            }
+        };
+    }
+
+    /**
+     * Continues the request's trace in hotel-service, so that its log lines carry the same trace id.
+     */
+    @Bean
+    public RequestInterceptor traceForwardingInterceptor() {
+        return template -> {
+            String traceparent = TraceContext.childTraceparent();
+            if (traceparent != null) {
+                template.header(TraceContext.TRACEPARENT_HEADER, traceparent);
+                template.header(TraceContext.TRACE_ID_HEADER, MDC.get(TraceContext.MDC_TRACE_ID));
             }
         };
     }
@@ -0,0 +1,50 @@
+package com.mephi.task.booking.config;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mephi.task.booking.client.ConcurrencyLimitCapability;
+import com.mephi.task.booking.client.HotelLoadBalancerConfiguration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * HotelClient is resolved through Spring Cloud LoadBalancer (Eureka, or the simple discovery list as a fallback)
+ * and, by default, sent over the pooled Apache HttpClient 5 that OpenFeign configures under
+ * {@code spring.cloud.openfeign.httpclient}.
+ */
+@Configuration
+@LoadBalancerClient(name = "hotel-service", configuration = HotelLoadBalancerConfiguration.class)
+public class HotelClientConfig {
+
+    // httpcomponents.httpclient.pool.* gauges; absent when the HTTP/2 client is enabled instead of hc5
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> {
+            if (connectionManager.getIfAvailable() instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        };
+    }
+
+    @Bean
+    public ConcurrencyLimitCapability concurrencyLimitCapability(
+            MeterRegistry registry,
+            @Value("${booking.hotel-client.limit.initial:20}") int initialLimit,
+            @Value("${booking.hotel-client.limit.min:2}") int minLimit,
+            @Value("${booking.hotel-client.limit.max:200}") int maxLimit,
+            @Value("${booking.hotel-client.limit.latency-threshold:500ms}") Duration latencyThreshold,
+            @Value("${booking.hotel-client.limit.backoff-ratio:0.9}") double backoffRatio) {
+        return new ConcurrencyLimitCapability(registry,
+                new ConcurrencyLimitCapability.Settings(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio));
+    }
+}
@@ -13,8 +13,12 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.mephi.task.booking.security.GatewayClaimsVerifier;
 import com.mephi.task.booking.security.JwtAuthFilter;
-import com.mephi.task.booking.security.JwtService;
+import com.mephi.task.booking.security.TokenRevocationCache;
+import com.mephi.task.booking.security.VerifiedTokenCache;
+
+import jakarta.servlet.DispatcherType;
 
 @Configuration
 @EnableMethodSecurity
@@ -35,11 +39,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   VerifiedTokenCache tokenCache,
+                                                   TokenRevocationCache revocationCache,
+                                                   GatewayClaimsVerifier gatewayClaims) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // async dispatches of an SSE stream carry no token; the request was authorized when it started
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // H2 Console - permit all
                         .requestMatchers("/h2/**", "/h2-console/**", "/h2").permitAll()
                         // Swagger UI endpoints
@@ -51,13 +60,13 @@ public class SecurityConfig {
                         // Public auth endpoints
                         .requestMatchers("/api/user/register", "/api/user/auth").permitAll()
                         // Admin only
-                        .requestMatchers("/api/user/**").hasRole("ADMIN")
+                        .requestMatchers("/api/user/**", "/api/admin/**").hasRole("ADMIN")
                         // All other requests need authentication
                         .anyRequest().authenticated()
                 )
                 .cors(cors -> cors.configure(http))
                 .headers(headers -> headers.frameOptions().disable())
-                .addFilterBefore(new JwtAuthFilter(jwtService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JwtAuthFilter(tokenCache, revocationCache, gatewayClaims), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,94 @@
+package com.mephi.task.booking.domain;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Finished booking moved out of {@code bookings} by {@link com.mephi.task.booking.service.BookingArchiver}.
+ * Keeps the original id, so ids stay unique across both tables.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "bookings_archive", indexes = {
+        @Index(name = "idx_bookings_archive_user_created", columnList = "user_id, created_at, id"),
+        // idempotency lookups of retried creates whose booking has been archived
+        @Index(name = "idx_bookings_archive_request", columnList = "request_id", unique = true),
+        @Index(name = "idx_bookings_archive_group", columnList = "group_id")
+})
+public class ArchivedBooking {
+    @Id
+    private Long id;
+
+    // plain column without a foreign key: the archive is never joined with users
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "request_id", nullable = false, length = 64)
+    private String requestId;
+
+    @Column(name = "group_id", length = 64)
+    private String groupId;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+
+    public static ArchivedBooking of(Booking b, Instant archivedAt) {
+        ArchivedBooking a = new ArchivedBooking();
+        a.setId(b.getId());
+        a.setUserId(b.getUser().getId());
+        a.setRoomId(b.getRoomId());
+        a.setStartDate(b.getStartDate());
+        a.setEndDate(b.getEndDate());
+        a.setStatus(b.getStatus());
+        a.setCreatedAt(b.getCreatedAt());
+        a.setRequestId(b.getRequestId());
+        a.setGroupId(b.getGroupId());
+        a.setArchivedAt(archivedAt);
+        return a;
+    }
+
+    /**
+     * Detached {@link Booking} view, so that archived rows can be returned through the same API as live ones.
+     */
+    public Booking toBooking() {
+        Booking b = new Booking();
+        b.setId(id);
+        b.setRoomId(roomId);
+        b.setStartDate(startDate);
+        b.setEndDate(endDate);
+        b.setStatus(status);
+        b.setCreatedAt(createdAt);
+        b.setRequestId(requestId);
+        b.setGroupId(groupId);
+        return b;
+    }
+}
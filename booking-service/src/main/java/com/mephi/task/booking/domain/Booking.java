@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,7 +25,14 @@ import lombok.Setter;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // serves both user lookups and keyset pages ordered by (created_at, id) without a sort step
+        @Index(name = "idx_bookings_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_bookings_group", columnList = "group_id"),
+        @Index(name = "idx_bookings_end_date", columnList = "end_date"),
+        // PENDING expiry sweep: oldest stuck bookings first
+        @Index(name = "idx_bookings_status_created", columnList = "status, created_at")
+})
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -53,6 +61,15 @@ public class Booking {
 
     @Column(name = "request_id", nullable = false, unique = true, length = 64)
     private String requestId;
+
+    // set for bookings created together by POST /api/booking/group, equal to the group request id
+    @Column(name = "group_id", length = 64)
+    private String groupId;
+
+    // taken by PendingBookingSweeper, so that sweeps on several replicas do not resolve the same booking
+    @JsonIgnore
+    @Column(name = "sweep_lease_until")
+    private Instant sweepLeaseUntil;
 }
 
 
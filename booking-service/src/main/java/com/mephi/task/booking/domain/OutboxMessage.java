@@ -0,0 +1,103 @@
+package com.mephi.task.booking.domain;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A hotel-service command written in the same transaction as the booking state change
+ * and delivered by {@link com.mephi.task.booking.service.OutboxRelay}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_booking", columnList = "booking_id")
+})
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    // idempotency key of the hold in hotel-service, same as the booking requestId
+    @Column(name = "request_id", nullable = false, length = 64)
+    private String requestId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public static OutboxMessage confirm(Booking b) {
+        OutboxMessage m = of(OutboxType.CONFIRM, b);
+        m.setStartDate(b.getStartDate());
+        m.setEndDate(b.getEndDate());
+        return m;
+    }
+
+    public static OutboxMessage confirmGroup(List<Booking> group) {
+        OutboxMessage m = of(OutboxType.CONFIRM_GROUP, group.get(0));
+        m.setRequestId(group.get(0).getGroupId());
+        m.setStartDate(group.get(0).getStartDate());
+        m.setEndDate(group.get(0).getEndDate());
+        return m;
+    }
+
+    public static OutboxMessage release(Booking b) {
+        return of(OutboxType.RELEASE, b);
+    }
+
+    private static OutboxMessage of(OutboxType type, Booking b) {
+        OutboxMessage m = new OutboxMessage();
+        m.setType(type);
+        m.setStatus(OutboxStatus.NEW);
+        m.setBookingId(b.getId());
+        m.setRoomId(b.getRoomId());
+        m.setRequestId(b.getRequestId());
+        m.setCreatedAt(Instant.now());
+        m.setNextAttemptAt(m.getCreatedAt());
+        return m;
+    }
+}
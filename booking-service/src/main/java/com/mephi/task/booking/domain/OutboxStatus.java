@@ -0,0 +1,8 @@
+package com.mephi.task.booking.domain;
+
+public enum OutboxStatus {
+    NEW,
+    SENT,
+    DISCARDED,
+    FAILED
+}
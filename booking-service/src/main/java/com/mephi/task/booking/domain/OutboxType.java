@@ -0,0 +1,8 @@
+package com.mephi.task.booking.domain;
+
+public enum OutboxType {
+    CONFIRM,
+    // all-or-nothing hold of every booking of a group; bookingId is the first booking, requestId the group id
+    CONFIRM_GROUP,
+    RELEASE
+}
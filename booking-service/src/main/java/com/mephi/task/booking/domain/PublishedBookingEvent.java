@@ -0,0 +1,66 @@
+package com.mephi.task.booking.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A booking status change written in the same transaction as the change itself. Every replica tails this table
+ * in {@link com.mephi.task.booking.service.BookingEventStream}, so a stream sees changes made on any replica;
+ * the id is the SSE event id.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "booking_events", indexes = {
+        @Index(name = "idx_booking_events_user", columnList = "user_id, id"),
+        @Index(name = "idx_booking_events_at", columnList = "created_at")
+})
+public class PublishedBookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // plain column without a foreign key: rows are pruned by age, not together with their user
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "group_id", length = 64)
+    private String groupId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BookingStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public static PublishedBookingEvent of(Booking b, Instant now) {
+        PublishedBookingEvent e = new PublishedBookingEvent();
+        e.setUserId(b.getUser().getId());
+        e.setBookingId(b.getId());
+        e.setGroupId(b.getGroupId());
+        e.setRoomId(b.getRoomId());
+        e.setStatus(b.getStatus());
+        e.setCreatedAt(now);
+        return e;
+    }
+}
@@ -31,6 +31,14 @@ public class User {
 
     @Column(nullable = false)
     private String role; // USER or ADMIN
+
+    // bumped whenever previously issued tokens must stop working
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
+    // disabled users cannot log in; their tokens are revoked when the flag is cleared
+    @Column(nullable = false)
+    private boolean enabled = true;
 }
 
 
@@ -0,0 +1,33 @@
+package com.mephi.task.booking.monitoring;
+
+/**
+ * Per-thread count of SQL statements prepared by Hibernate.
+ * The servlet filter resets it at the start of every request; tests can reset it themselves
+ * and pin a query budget with {@link #assertQueries(long)}.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private QueryCounter() {
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static void increment() {
+        COUNT.get()[0]++;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+
+    public static void assertQueries(long max) {
+        long actual = count();
+        if (actual > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but " + actual + " were executed");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mephi.task.booking.monitoring;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.MDC;
+
+/**
+ * Trace id of the current request in the MDC ({@code traceId}), as received from api-gateway in the W3C
+ * {@code traceparent} header or the legacy {@code X-Trace-Id}. Outgoing calls continue it with a new span id.
+ * <p>
+ * The header parsing is a copy of api-gateway's {@code TraceFilter}, and hotel-service has the same class: the
+ * modules share no code, and a header the gateway accepts must be accepted here too, so keep the three in step.
+ */
+public final class TraceContext {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String MDC_TRACE_ID = "traceId";
+    public static final String MDC_SPAN_ID = "spanId";
+
+    private TraceContext() {
+    }
+
+    /**
+     * Trace id from the incoming headers, or a new one if neither carries a valid id.
+     */
+    public static String traceId(String traceparent, String legacyTraceId) {
+        String[] parent = parseTraceparent(traceparent);
+        if (parent != null) {
+            return parent[1];
+        }
+        String normalized = legacyTraceId == null ? "" : legacyTraceId.replace("-", "").toLowerCase();
+        return isTraceId(normalized) ? normalized : newTraceId();
+    }
+
+    /**
+     * {@code traceparent} for a call made from the current thread, or {@code null} outside a trace.
+     */
+    public static String childTraceparent() {
+        String traceId = MDC.get(MDC_TRACE_ID);
+        return traceId == null ? null : "00-" + traceId + '-' + newSpanId() + "-01";
+    }
+
+    /**
+     * Runs the task with the MDC of the submitting thread, so that work handed to an executor keeps the trace.
+     */
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null) {
+                MDC.setContextMap(context);
+            }
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+
+    static String newSpanId() {
+        return hex(ThreadLocalRandom.current().nextLong() | 1);
+    }
+
+    /**
+     * @return version, trace id, parent id and flags, or {@code null} if the header is absent or malformed
+     */
+    private static String[] parseTraceparent(String header) {
+        if (header == null) {
+            return null;
+        }
+        String[] parts = header.trim().split("-");
+        if (parts.length < 4 || parts[0].length() != 2 || "ff".equals(parts[0]) || !isTraceId(parts[1])
+                || !isHex(parts[2], 16) || !isHex(parts[3], 2)) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static boolean isTraceId(String value) {
+        return isHex(value, 32) && !value.equals("0".repeat(32));
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return hex(random.nextLong()) + hex(random.nextLong() | 1);
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
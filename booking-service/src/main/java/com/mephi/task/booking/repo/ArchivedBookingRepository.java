@@ -0,0 +1,40 @@
+package com.mephi.task.booking.repo;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.mephi.task.booking.domain.ArchivedBooking;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    @Query("SELECT b FROM ArchivedBooking b WHERE b.userId = :userId ORDER BY b.createdAt DESC, b.id DESC")
+    List<ArchivedBooking> findLatestByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT b FROM ArchivedBooking b WHERE b.userId = :userId "
+            + "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) "
+            + "ORDER BY b.createdAt DESC, b.id DESC")
+    List<ArchivedBooking> findByUserIdBefore(@Param("userId") Long userId,
+                                             @Param("createdAt") Instant createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedBooking b WHERE b.userId IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    Optional<ArchivedBooking> findByIdAndUserId(Long id, Long userId);
+
+    Optional<ArchivedBooking> findByRequestId(String requestId);
+
+    List<ArchivedBooking> findByGroupIdOrderByIdAsc(String groupId);
+}
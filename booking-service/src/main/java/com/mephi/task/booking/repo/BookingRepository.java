@@ -1,23 +1,99 @@
 package com.mephi.task.booking.repo;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.mephi.task.booking.domain.Booking;
-import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.domain.BookingStatus;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
-    @Query("SELECT b FROM Booking b WHERE b.user = :user")
-    Page<Booking> findByUser(@Param("user") User user, Pageable pageable);
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId")
+    Page<Booking> findByUserId(@Param("userId") Long userId, Pageable pageable);
     
+    @Query("SELECT b FROM Booking b WHERE b.id = :id AND b.user.id = :userId")
+    Optional<Booking> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findLatestByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId "
+            + "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) "
+            + "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findByUserIdBefore(@Param("userId") Long userId,
+                                     @Param("createdAt") Instant createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    // skips bookings leased by a sweep running on another replica
+    @Query("SELECT b FROM Booking b WHERE b.status = com.mephi.task.booking.domain.BookingStatus.PENDING "
+            + "AND b.createdAt < :cutoff AND (b.sweepLeaseUntil IS NULL OR b.sweepLeaseUntil < :now) "
+            + "ORDER BY b.createdAt, b.id")
+    List<Booking> findPendingCreatedBefore(@Param("cutoff") Instant cutoff, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Leases a PENDING booking to the calling sweep until {@code until}.
+     *
+     * @return 1 if the lease was taken, 0 if the booking is no longer PENDING or another sweep holds it
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.sweepLeaseUntil = :until WHERE b.id = :id "
+            + "AND b.status = com.mephi.task.booking.domain.BookingStatus.PENDING "
+            + "AND (b.sweepLeaseUntil IS NULL OR b.sweepLeaseUntil < :now)")
+    int claimForSweep(@Param("id") Long id, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Same as {@link #claimForSweep} for all PENDING bookings of a group.
+     *
+     * @return number of bookings leased, 0 if another sweep holds the group
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.sweepLeaseUntil = :until WHERE b.groupId = :groupId "
+            + "AND b.status = com.mephi.task.booking.domain.BookingStatus.PENDING "
+            + "AND (b.sweepLeaseUntil IS NULL OR b.sweepLeaseUntil < :now)")
+    int claimGroupForSweep(@Param("groupId") String groupId, @Param("now") Instant now, @Param("until") Instant until);
+
+    Optional<Booking> findFirstByStatusOrderByCreatedAtAsc(BookingStatus status);
+
+    // guarded by status so that a cancellation that committed meanwhile is not overwritten
+    @Modifying
+    @Transactional
+    @Query("UPDATE Booking b SET b.startDate = :start, b.endDate = :end WHERE b.id = :id "
+            + "AND b.status = com.mephi.task.booking.domain.BookingStatus.CONFIRMED")
+    int updateConfirmedDates(@Param("id") Long id, @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // keyset page over the unique request_id index, for reconciliation with hotel-service holds
+    @Query("SELECT b FROM Booking b WHERE b.endDate >= :from AND b.requestId > :after ORDER BY b.requestId")
+    List<Booking> findPageAfter(@Param("from") LocalDate from, @Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Booking b WHERE b.user.id IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // finished bookings that ended before the cutoff; PENDING ones are left to the saga
+    @Query("SELECT b FROM Booking b JOIN FETCH b.user WHERE b.endDate < :cutoff "
+            + "AND b.status <> com.mephi.task.booking.domain.BookingStatus.PENDING ORDER BY b.endDate, b.id")
+    List<Booking> findArchivable(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
     @Query("SELECT b FROM Booking b WHERE b.requestId = :requestId")
     Optional<Booking> findByRequestId(@Param("requestId") String requestId);
+
+    List<Booking> findByGroupIdOrderByIdAsc(String groupId);
 }
 
 
@@ -0,0 +1,28 @@
+package com.mephi.task.booking.repo;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.domain.OutboxStatus;
+import com.mephi.task.booking.domain.OutboxType;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<OutboxMessage> findDue(@Param("status") OutboxStatus status, @Param("now") Instant now, Pageable pageable);
+
+    Optional<OutboxMessage> findFirstByBookingIdAndTypeAndStatusOrderByIdDesc(Long bookingId, OutboxType type, OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = com.mephi.task.booking.domain.OutboxStatus.DISCARDED " +
+            "WHERE m.bookingId = :bookingId AND m.type = :type AND m.status = com.mephi.task.booking.domain.OutboxStatus.NEW")
+    int discardPending(@Param("bookingId") Long bookingId, @Param("type") OutboxType type);
+}
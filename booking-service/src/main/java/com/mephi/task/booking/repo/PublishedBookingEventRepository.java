@@ -0,0 +1,32 @@
+package com.mephi.task.booking.repo;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mephi.task.booking.domain.PublishedBookingEvent;
+
+public interface PublishedBookingEventRepository extends JpaRepository<PublishedBookingEvent, Long> {
+
+    @Query("SELECT e FROM PublishedBookingEvent e WHERE e.userId IN :userIds AND e.createdAt >= :since ORDER BY e.id")
+    List<PublishedBookingEvent> findRecent(@Param("userIds") Collection<Long> userIds, @Param("since") Instant since);
+
+    @Query("SELECT e FROM PublishedBookingEvent e WHERE e.userId = :userId AND e.id > :afterId "
+            + "AND e.createdAt >= :since ORDER BY e.id DESC")
+    List<PublishedBookingEvent> findLatestAfter(@Param("userId") Long userId,
+                                                @Param("afterId") Long afterId,
+                                                @Param("since") Instant since,
+                                                Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PublishedBookingEvent e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
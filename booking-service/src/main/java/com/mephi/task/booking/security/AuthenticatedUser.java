@@ -0,0 +1,15 @@
+package com.mephi.task.booking.security;
+
+import java.security.Principal;
+
+/**
+ * Principal built from the JWT claims, so that request handling does not need to load the user row.
+ * {@code id} is {@code null} for tokens issued before the user id was embedded.
+ */
+public record AuthenticatedUser(Long id, String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
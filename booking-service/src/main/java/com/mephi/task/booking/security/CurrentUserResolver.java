@@ -0,0 +1,25 @@
+package com.mephi.task.booking.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.mephi.task.booking.repo.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+
+    /**
+     * Returns the id carried by the token; only tokens issued without a user id fall back to a lookup by username.
+     */
+    public Long userId(Authentication auth) {
+        if (auth.getPrincipal() instanceof AuthenticatedUser user && user.id() != null) {
+            return user.id();
+        }
+        return userRepository.findByUsername(auth.getName()).orElseThrow().getId();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mephi.task.booking.security;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Trust mode ({@code security.gateway.trust-claims}): accepts the claims api-gateway forwards as headers after it
+ * has verified the JWT, instead of parsing the token again. The headers are signed with
+ * {@code security.gateway.secret}; unsigned, tampered or expired ones are ignored and the JWT is verified as usual.
+ * Trust mode is off by default and refuses to start without a secret of at least {@value #MIN_SECRET_BYTES} bytes.
+ * <p>
+ * The header format is defined by ClaimsSigner in api-gateway. hotel-service keeps its own copy of this class, since
+ * the services share no code (as with JwtService); all three test against the same pinned signature.
+ */
+@Component
+public class GatewayClaimsVerifier {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GatewayClaimsVerifier.class);
+
+    static final String SUBJECT = "X-Auth-Subject";
+    static final String ROLE = "X-Auth-Role";
+    static final String USER_ID = "X-Auth-User-Id";
+    static final String VERSION = "X-Auth-Version";
+    static final String EXPIRES = "X-Auth-Expires";
+    static final String SIGNATURE = "X-Auth-Signature";
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+
+    public GatewayClaimsVerifier(@Value("${security.gateway.trust-claims:false}") boolean enabled,
+                                 @Value("${security.gateway.secret:}") String secret) {
+        if (enabled && secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("security.gateway.trust-claims is on, but security.gateway.secret is"
+                    + " missing or shorter than " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.enabled = enabled;
+        this.key = enabled ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256") : null;
+    }
+
+    public Optional<VerifiedTokenCache.VerifiedToken> verify(HttpServletRequest request) {
+        String signature = request.getHeader(SIGNATURE);
+        if (!enabled || signature == null) {
+            return Optional.empty();
+        }
+        String subject = nullToEmpty(request.getHeader(SUBJECT));
+        String role = nullToEmpty(request.getHeader(ROLE));
+        String userId = nullToEmpty(request.getHeader(USER_ID));
+        String version = nullToEmpty(request.getHeader(VERSION));
+        String expires = nullToEmpty(request.getHeader(EXPIRES));
+        byte[] expected = hmac(String.join("\n", subject, role, userId, version, expires));
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            actual = new byte[0];
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            log.warn("gateway claim headers with invalid signature on {}", request.getRequestURI());
+            return Optional.empty();
+        }
+        try {
+            long expiresAt = Long.parseLong(expires);
+            if (expiresAt <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            AuthenticatedUser principal = new AuthenticatedUser(userId.isEmpty() ? null : Long.valueOf(userId),
+                    URLDecoder.decode(subject, StandardCharsets.UTF_8), role);
+            return Optional.of(new VerifiedTokenCache.VerifiedToken(principal,
+                    List.of(new SimpleGrantedAuthority("ROLE_" + role)), Integer.parseInt(version), expiresAt));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] hmac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
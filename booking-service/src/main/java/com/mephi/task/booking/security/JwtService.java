@@ -8,6 +8,8 @@ import java.util.Date;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -20,6 +22,8 @@ public class JwtService {
     private String secret;
 
     private Key key;
+    // immutable and thread-safe once built, so one instance serves all requests
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
@@ -34,13 +38,33 @@ public class JwtService {
         } else {
             this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
         }
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    /**
+     * Verifies the signature and expiry of the token.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(String username, String role, long ttlSeconds) {
+        return generateToken(null, username, role, 0, ttlSeconds);
+    }
+
+    /**
+     * Issues a token that carries the user id ({@code uid}) and token version ({@code ver}),
+     * so that requests can be served without loading the user.
+     */
+    public String generateToken(Long userId, String username, String role, int tokenVersion, long ttlSeconds) {
         Instant now = Instant.now();
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
+                .claim("uid", userId)
+                .claim("ver", tokenVersion)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(ttlSeconds)))
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -0,0 +1,44 @@
+package com.mephi.task.booking.security;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived SERVICE token that booking-service presents to hotel-service for its {@code /internal/**} endpoints and
+ * for calls made outside a user request (outbox relay, sweeper, reconciliation). Reissued when less than a fifth of
+ * its lifetime is left.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    public static final String SERVICE_ROLE = "SERVICE";
+
+    private final JwtService jwtService;
+
+    @Value("${spring.application.name:booking-service}")
+    private String serviceName;
+    @Value("${security.jwt.service-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private volatile Issued current;
+
+    public ServiceTokenProvider(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    public String token() {
+        Issued issued = current;
+        Instant now = Instant.now();
+        if (issued == null || now.isAfter(issued.renewAt())) {
+            // concurrent callers may both reissue; either token is valid
+            issued = new Issued(jwtService.generateToken(serviceName, SERVICE_ROLE, ttlSeconds), now.plusSeconds(ttlSeconds * 4 / 5));
+            current = issued;
+        }
+        return issued.token();
+    }
+
+    private record Issued(String token, Instant renewAt) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.mephi.task.booking.security;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers users whose tokens were invalidated (deleted users, changed password or role).
+ * Entries only need to outlive the tokens they reject, so they are evicted after the token TTL,
+ * which keeps the map limited to users changed within the last TTL window.
+ */
+@Component
+public class TokenRevocationCache {
+
+    private static final int ALL_VERSIONS = Integer.MAX_VALUE;
+
+    private final Map<Long, Revocation> revocations = new ConcurrentHashMap<>();
+
+    @Value("${security.jwt.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    /**
+     * Rejects tokens of the user with a version lower than {@code minValidVersion}.
+     */
+    public void revokeBelow(Long userId, int minValidVersion) {
+        revocations.put(userId, new Revocation(minValidVersion, Instant.now()));
+    }
+
+    public void revokeAll(Long userId) {
+        revokeBelow(userId, ALL_VERSIONS);
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation r = revocations.get(userId);
+        return r != null && tokenVersion < r.minValidVersion();
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation-cleanup-ms:60000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minusSeconds(ttlSeconds);
+        revocations.values().removeIf(r -> r.revokedAt().isBefore(cutoff));
+    }
+
+    private record Revocation(int minValidVersion, Instant revokedAt) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.mephi.task.booking.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mephi.task.booking.domain.ArchivedBooking;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.repo.ArchivedBookingRepository;
+import com.mephi.task.booking.repo.BookingRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves finished bookings whose stay ended more than {@code booking.archive.after-days} ago from {@code bookings}
+ * to {@code bookings_archive}, so that the hot table and its indexes only hold recent rows.
+ * <p>
+ * Each batch is copied and deleted in its own short transaction; a run stops after {@code max-batches} batches
+ * and the rest is picked up by the next run. PENDING bookings are never archived.
+ */
+@Component
+public class BookingArchiver {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BookingArchiver.class);
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
+    private final TransactionTemplate tx;
+    private final Counter archived;
+
+    @Value("${booking.archive.enabled:true}")
+    private boolean enabled;
+    @Value("${booking.archive.after-days:90}")
+    private int afterDays;
+    @Value("${booking.archive.batch-size:500}")
+    private int batchSize;
+    @Value("${booking.archive.max-batches:20}")
+    private int maxBatches;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           ArchivedBookingRepository archiveRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry registry) {
+        this.bookingRepository = bookingRepository;
+        this.archiveRepository = archiveRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("booking.archive.moved")
+                .description("Bookings moved to the archive table").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.archive.interval-ms:3600000}",
+            initialDelayString = "${booking.archive.interval-ms:3600000}")
+    public void run() {
+        if (enabled) {
+            archive(LocalDate.now().minusDays(afterDays));
+        }
+    }
+
+    /**
+     * Archives bookings that ended before {@code cutoff}.
+     *
+     * @return number of bookings moved
+     */
+    public int archive(LocalDate cutoff) {
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            Integer moved = tx.execute(status -> archiveBatch(cutoff));
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("archived {} bookings ended before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDate cutoff) {
+        List<Booking> batch = bookingRepository.findArchivable(cutoff, PageRequest.ofSize(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        archiveRepository.saveAll(batch.stream().map(b -> ArchivedBooking.of(b, now)).toList());
+        bookingRepository.deleteAllInBatch(batch);
+        archived.increment(batch.size());
+        return batch.size();
+    }
+}
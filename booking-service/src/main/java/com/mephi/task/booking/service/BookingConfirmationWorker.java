@@ -0,0 +1,53 @@
+package com.mephi.task.booking.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the confirm/compensate part of the booking saga off the request thread.
+ * The caller's security context is carried over so that the hotel-service call is authenticated the same way
+ * as in the synchronous flow.
+ */
+@Component
+public class BookingConfirmationWorker {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BookingConfirmationWorker.class);
+
+    private final BookingService bookingService;
+    private final ThreadPoolTaskExecutor executor;
+
+    public BookingConfirmationWorker(BookingService bookingService,
+                                     @Qualifier("bookingConfirmationExecutor") ThreadPoolTaskExecutor executor) {
+        this.bookingService = bookingService;
+        this.executor = executor;
+    }
+
+    /**
+     * @return {@code false} if the worker queue is full and the booking was not scheduled
+     */
+    public boolean submit(Long bookingId, String requestId) {
+        try {
+            executor.execute(new DelegatingSecurityContextRunnable(() -> confirmOrCompensate(bookingId, requestId)));
+            return true;
+        } catch (TaskRejectedException ex) {
+            log.warn("async confirm rejected, queue full bookingId={} requestId={}", bookingId, requestId);
+            return false;
+        }
+    }
+
+    private void confirmOrCompensate(Long bookingId, String requestId) {
+        try {
+            bookingService.confirm(bookingId);
+        } catch (Exception ex) {
+            log.warn("async confirm failed bookingId={} requestId={}: {}", bookingId, requestId, ex.getMessage());
+            try {
+                bookingService.cancelAndCompensate(bookingId, requestId);
+            } catch (Exception compensationEx) {
+                log.error("async compensation failed bookingId={} requestId={}", bookingId, requestId, compensationEx);
+            }
+        }
+    }
+}
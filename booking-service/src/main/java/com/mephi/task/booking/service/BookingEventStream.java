@@ -0,0 +1,192 @@
+package com.mephi.task.booking.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.PublishedBookingEvent;
+import com.mephi.task.booking.repo.PublishedBookingEventRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pushes booking status changes to the owner's open {@code GET /api/bookings/events} streams.
+ * <p>
+ * Every change is written to {@code booking_events} in the transaction that makes it, so the streams do not depend on
+ * which replica made the change or which replica holds the stream. The publishing replica delivers the event to its own
+ * streams once the transaction commits; every replica also polls the table each {@code booking.events.poll-ms} for
+ * events of its subscribers written in the last {@code commit-lag-ms}, which covers changes made on other replicas and
+ * rows that commit out of id order. Reconnects with {@code Last-Event-ID} are replayed from the table, so they may land
+ * on any replica. Streams are written on {@code bookingEventsExecutor}, so a slow client never holds up the saga.
+ */
+@Component
+public class BookingEventStream {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BookingEventStream.class);
+
+    private final PublishedBookingEventRepository events;
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    // ids already written to local streams, kept while the poll window can still return them
+    private final Map<Long, Instant> delivered = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${booking.events.timeout-ms:1800000}")
+    private long timeoutMs;
+    @Value("${booking.events.replay-size:50}")
+    private int replaySize;
+    @Value("${booking.events.replay-ttl-ms:600000}")
+    private long replayTtlMs;
+    @Value("${booking.events.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+    @Value("${booking.events.commit-lag-ms:5000}")
+    private long commitLagMs;
+
+    public BookingEventStream(PublishedBookingEventRepository events,
+                              @Qualifier("bookingEventsExecutor") ThreadPoolTaskExecutor executor,
+                              MeterRegistry registry) {
+        this.events = events;
+        this.executor = executor;
+        Gauge.builder("booking.events.streams", subscribers, s -> s.values().stream().mapToInt(List::size).sum())
+                .description("Open booking event streams").register(registry);
+    }
+
+    public record BookingEvent(Long bookingId, String groupId, Long roomId, BookingStatus status, Instant at) {
+    }
+
+    /**
+     * Records the booking's current status in the surrounding transaction and delivers it to the owner's streams
+     * on this replica once the transaction commits. Streams on other replicas pick it up on their next poll.
+     */
+    public void publish(Booking b) {
+        PublishedBookingEvent event = events.save(PublishedBookingEvent.of(b, Instant.now()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(List.of(event));
+                }
+            });
+        } else {
+            dispatch(List.of(event));
+        }
+    }
+
+    /**
+     * Opens a stream for the user, first replaying stored events newer than {@code lastEventId}.
+     * A client may see an event twice around the replay; ids let it drop duplicates.
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> evicted = new ArrayList<>();
+        subscribers.compute(userId, (id, streams) -> {
+            List<SseEmitter> current = streams == null ? new CopyOnWriteArrayList<>() : streams;
+            while (current.size() >= maxStreamsPerUser) {
+                // the oldest stream is most likely a tab the user has already left
+                evicted.add(current.remove(0));
+            }
+            current.add(emitter);
+            return current;
+        });
+        evicted.forEach(SseEmitter::complete);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(ex -> remove(userId, emitter));
+        if (lastEventId != null) {
+            List<PublishedBookingEvent> missed = new ArrayList<>(events.findLatestAfter(userId, lastEventId,
+                    Instant.now().minusMillis(replayTtlMs), PageRequest.of(0, replaySize)));
+            Collections.reverse(missed);
+            for (PublishedBookingEvent event : missed) {
+                if (!send(userId, emitter, event)) {
+                    break;
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Delivers events of local subscribers that were published on any replica within the commit-lag window.
+     */
+    @Scheduled(fixedDelayString = "${booking.events.poll-ms:500}")
+    public void poll() {
+        Instant since = Instant.now().minusMillis(commitLagMs);
+        delivered.values().removeIf(at -> at.isBefore(since));
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatch(events.findRecent(List.copyOf(subscribers.keySet()), since));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, streams) -> streams.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException ex) {
+                remove(userId, emitter);
+            }
+        }));
+        int pruned = events.deleteOlderThan(Instant.now().minusMillis(replayTtlMs));
+        if (pruned > 0) {
+            log.debug("booking events pruned count={}", pruned);
+        }
+    }
+
+    private void dispatch(List<PublishedBookingEvent> batch) {
+        for (PublishedBookingEvent event : batch) {
+            if (delivered.putIfAbsent(event.getId(), event.getCreatedAt()) != null) {
+                continue;
+            }
+            List<SseEmitter> streams = subscribers.get(event.getUserId());
+            if (streams == null || streams.isEmpty()) {
+                continue;
+            }
+            try {
+                executor.execute(() -> streams.forEach(emitter -> send(event.getUserId(), emitter, event)));
+            } catch (TaskRejectedException ex) {
+                // the event stays in booking_events; clients pick it up when they reconnect
+                log.warn("booking event dropped, queue full userId={} bookingId={}", event.getUserId(), event.getBookingId());
+            }
+        }
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, PublishedBookingEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getId()))
+                    .name("booking")
+                    .data(new BookingEvent(event.getBookingId(), event.getGroupId(), event.getRoomId(),
+                            event.getStatus(), event.getCreatedAt())));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            remove(userId, emitter);
+            return false;
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, streams) -> {
+            streams.remove(emitter);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
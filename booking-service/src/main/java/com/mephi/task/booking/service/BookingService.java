@@ -2,18 +2,26 @@ package com.mephi.task.booking.service;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.mephi.task.booking.client.HotelClient;
 import com.mephi.task.booking.client.dto.AvailabilityRequest;
+import com.mephi.task.booking.domain.ArchivedBooking;
 import com.mephi.task.booking.domain.Booking;
 import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.domain.OutboxStatus;
+import com.mephi.task.booking.domain.OutboxType;
 import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.repo.ArchivedBookingRepository;
 import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.repo.OutboxMessageRepository;
 import com.mephi.task.booking.repo.UserRepository;
 
 import io.github.resilience4j.retry.annotation.Retry;
@@ -23,20 +31,34 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class BookingService {
 
+    /**
+     * Reserved for the requestIds of group members, see {@link #createPendingGroup}.
+     */
+    public static final String GROUP_REQUEST_PREFIX = "grp:";
+
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
     private final UserRepository userRepository;
+    private final OutboxMessageRepository outboxRepository;
+    private final OutboxRelay outboxRelay;
+    private final BookingEventStream eventStream;
     private final HotelClient hotelClient;
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BookingService.class);
 
     @Transactional
     public Booking createPending(Long userId, Long roomId, LocalDate start, LocalDate end, String requestId) {
         log.info("createPending requestId={}, userId={}, roomId={}, start={}, end={}", requestId, userId, roomId, start, end);
-        Optional<Booking> existing = bookingRepository.findByRequestId(requestId);
+        Optional<Booking> existing = bookingRepository.findByRequestId(requestId)
+                // a retry may come after the booking has been archived; the archive keeps its requestId
+                .or(() -> archiveRepository.findByRequestId(requestId).map(ArchivedBooking::toBooking));
         if (existing.isPresent()) {
-            log.info("createPending idempotent hit requestId={}, bookingId={}", requestId, existing.get().getId());
+            log.info("createPending idempotent hit requestId={}, bookingId={}, status={}",
+                    requestId, existing.get().getId(), existing.get().getStatus());
             return existing.get();
         }
-        User user = userRepository.findById(userId).orElseThrow();
+        requireNotPast(start);
+        // reference only: the user id comes from the token, no need to load the row
+        User user = userRepository.getReferenceById(userId);
         Booking b = new Booking();
         b.setUser(user);
         b.setRoomId(roomId);
@@ -46,11 +68,117 @@ public class BookingService {
         b.setCreatedAt(Instant.now());
         b.setRequestId(requestId);
         Booking saved = bookingRepository.save(b);
+        outboxRelay.enqueue(OutboxMessage.confirm(saved));
         log.info("created PENDING bookingId={} requestId={}", saved.getId(), requestId);
         return saved;
     }
 
+    /**
+     * Creates one PENDING booking per room in a single transaction, together with one CONFIRM_GROUP outbox message.
+     * Booking i of the group gets requestId {@code grp:groupId:i}, a prefix single bookings may not use, so the two
+     * never collide; repeating the call with the same groupId returns the bookings created the first time.
+     */
+    @Transactional
+    public List<Booking> createPendingGroup(Long userId, List<Long> roomIds, LocalDate start, LocalDate end, String groupId) {
+        log.info("createPendingGroup groupId={}, userId={}, roomIds={}, start={}, end={}", groupId, userId, roomIds, start, end);
+        List<Booking> existing = bookingRepository.findByGroupIdOrderByIdAsc(groupId);
+        if (!existing.isEmpty()) {
+            if (!existing.get(0).getUser().getId().equals(userId)) {
+                throw new IllegalArgumentException("requestId " + groupId + " is already used");
+            }
+            log.info("createPendingGroup idempotent hit groupId={}", groupId);
+            return existing;
+        }
+        List<ArchivedBooking> archived = archiveRepository.findByGroupIdOrderByIdAsc(groupId);
+        if (!archived.isEmpty()) {
+            if (!archived.get(0).getUserId().equals(userId)) {
+                throw new IllegalArgumentException("requestId " + groupId + " is already used");
+            }
+            log.info("createPendingGroup idempotent hit on archived groupId={}", groupId);
+            return archived.stream().map(ArchivedBooking::toBooking).toList();
+        }
+        requireNotPast(start);
+        User user = userRepository.getReferenceById(userId);
+        Instant now = Instant.now();
+        List<Booking> group = new ArrayList<>();
+        for (int i = 0; i < roomIds.size(); i++) {
+            Booking b = new Booking();
+            b.setUser(user);
+            b.setRoomId(roomIds.get(i));
+            b.setStartDate(start);
+            b.setEndDate(end);
+            b.setStatus(BookingStatus.PENDING);
+            b.setCreatedAt(now);
+            b.setRequestId(groupRequestId(groupId, i + 1));
+            b.setGroupId(groupId);
+            group.add(b);
+        }
+        List<Booking> saved = bookingRepository.saveAll(group);
+        outboxRelay.enqueue(OutboxMessage.confirmGroup(saved));
+        log.info("created PENDING group groupId={} size={}", groupId, saved.size());
+        return saved;
+    }
+
+    /**
+     * Holds all rooms of the group with one hotel-service call; either every booking becomes CONFIRMED or none does.
+     */
+    @Retry(name = "hotel-confirm")
+    @io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker(name = "hotel-confirm")
+    public List<Booking> confirmGroup(String groupId) {
+        List<Booking> group = bookingRepository.findByGroupIdOrderByIdAsc(groupId);
+        if (group.stream().allMatch(b -> b.getStatus() == BookingStatus.CONFIRMED)) {
+            return group;
+        }
+        if (group.stream().anyMatch(b -> b.getStatus() == BookingStatus.CANCELLED)) {
+            throw new IllegalStateException("Booking group " + groupId + " is cancelled");
+        }
+        Booking first = group.get(0);
+        OutboxMessage message = outboxRepository
+                .findFirstByBookingIdAndTypeAndStatusOrderByIdDesc(first.getId(), OutboxType.CONFIRM_GROUP, OutboxStatus.NEW)
+                .orElseGet(() -> outboxRelay.enqueue(OutboxMessage.confirmGroup(group)));
+        outboxRelay.dispatch(message);
+        List<Booking> confirmed = bookingRepository.findByGroupIdOrderByIdAsc(groupId);
+        log.info("confirmed group groupId={} size={}", groupId, confirmed.size());
+        return confirmed;
+    }
+
+    public static String groupRequestId(String groupId, int index) {
+        return GROUP_REQUEST_PREFIX + groupId + ':' + index;
+    }
+
+    @Transactional
+    public List<Booking> cancelGroupAndCompensate(String groupId) {
+        return cancelGroupAndCompensate(groupId, Set.of());
+    }
+
+    /**
+     * Cancels every booking of the group and releases their holds, except for the bookings in {@code notHeld}:
+     * hotel-service has reported that it rolled those back, so there is nothing to release.
+     */
     @Transactional
+    public List<Booking> cancelGroupAndCompensate(String groupId, Set<String> notHeld) {
+        List<Booking> group = bookingRepository.findByGroupIdOrderByIdAsc(groupId);
+        if (group.isEmpty()) {
+            return group;
+        }
+        log.warn("cancelGroupAndCompensate groupId={} size={} notHeld={}", groupId, group.size(), notHeld.size());
+        outboxRepository.discardPending(group.get(0).getId(), OutboxType.CONFIRM_GROUP);
+        for (Booking b : group) {
+            if (b.getStatus() != BookingStatus.CANCELLED) {
+                b.setStatus(BookingStatus.CANCELLED);
+                if (!notHeld.contains(b.getRequestId())) {
+                    outboxRelay.enqueue(OutboxMessage.release(b));
+                }
+                eventStream.publish(b);
+            }
+        }
+        return bookingRepository.saveAll(group);
+    }
+
+    /**
+     * Dispatches the booking's CONFIRM message to hotel-service. No database transaction is held during the remote call;
+     * the booking becomes CONFIRMED in a short transaction once hotel-service has accepted the hold.
+     */
     @Retry(name = "hotel-confirm")
     @io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker(name = "hotel-confirm")
     public Booking confirm(Long bookingId) {
@@ -58,12 +186,69 @@ public class BookingService {
         if (b.getStatus() == BookingStatus.CONFIRMED) {
             return b;
         }
-        String correlationId = UUID.randomUUID().toString();
-        log.info("confirm bookingId={} correlationId={} roomId={} start={} end={}", b.getId(), correlationId, b.getRoomId(), b.getStartDate(), b.getEndDate());
-        hotelClient.confirmAvailability(b.getRoomId(), new AvailabilityRequest(b.getStartDate(), b.getEndDate(), correlationId, String.valueOf(b.getId())));
-        b.setStatus(BookingStatus.CONFIRMED);
+        if (b.getStatus() == BookingStatus.CANCELLED) {
+            throw new IllegalStateException("Booking " + bookingId + " is cancelled");
+        }
+        OutboxMessage message = outboxRepository
+                .findFirstByBookingIdAndTypeAndStatusOrderByIdDesc(bookingId, OutboxType.CONFIRM, OutboxStatus.NEW)
+                .orElseGet(() -> outboxRelay.enqueue(OutboxMessage.confirm(b)));
+        log.info("confirm bookingId={} requestId={} roomId={} start={} end={}", b.getId(), b.getRequestId(), b.getRoomId(), b.getStartDate(), b.getEndDate());
+        Booking saved = Optional.ofNullable(outboxRelay.dispatch(message)).orElseThrow();
+        log.info("confirmed bookingId={} requestId={} status={}", saved.getId(), saved.getRequestId(), saved.getStatus());
+        return saved;
+    }
+
+    /**
+     * Moves a CONFIRMED booking to new dates by changing its hold in hotel-service in place: the room is never released
+     * in between, and hotel-service only checks the days that were not held yet. The booking row is updated after
+     * hotel-service has accepted the change; both operations set absolute dates, so a retry is harmless.
+     */
+    @Retry(name = "hotel-confirm")
+    @io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker(name = "hotel-confirm")
+    public Booking changeDates(Long bookingId, LocalDate start, LocalDate end) {
+        Booking b = bookingRepository.findById(bookingId).orElseThrow();
+        if (b.getStatus() != BookingStatus.CONFIRMED) {
+            throw new IllegalStateException("Booking " + bookingId + " is " + b.getStatus());
+        }
+        if (b.getStartDate().equals(start) && b.getEndDate().equals(end)) {
+            return b;
+        }
+        requireNotPast(start);
+        log.info("changeDates bookingId={} requestId={} roomId={} {}..{} -> {}..{}",
+                b.getId(), b.getRequestId(), b.getRoomId(), b.getStartDate(), b.getEndDate(), start, end);
+        hotelClient.modifyHold(b.getRoomId(), new AvailabilityRequest(start, end, b.getRequestId(), String.valueOf(b.getId())));
+        if (bookingRepository.updateConfirmedDates(bookingId, start, end) == 0) {
+            // cancelled while hotel-service was moving the hold; the cancellation's release removes the hold anyway
+            throw new IllegalStateException("Booking " + bookingId + " was cancelled");
+        }
+        return bookingRepository.findById(bookingId).orElseThrow();
+    }
+
+    /**
+     * New stays may not start in the past. Checked only where a booking is created or moved, so that a retry of an
+     * existing request still gets its original outcome after the dates have passed.
+     */
+    private static void requireNotPast(LocalDate start) {
+        if (start.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("startDate " + start + " is in the past");
+        }
+    }
+
+    /**
+     * Moves a PENDING booking to another room after hotel-service rejected the previous one.
+     * The old CONFIRM message is discarded; nothing is held for it because hotel-service answered with a conflict.
+     */
+    @Transactional
+    public Booking reassignRoom(Long bookingId, Long roomId) {
+        Booking b = bookingRepository.findById(bookingId).orElseThrow();
+        if (b.getStatus() != BookingStatus.PENDING) {
+            throw new IllegalStateException("Booking " + bookingId + " is " + b.getStatus());
+        }
+        log.info("reassignRoom bookingId={} requestId={} roomId={} -> {}", b.getId(), b.getRequestId(), b.getRoomId(), roomId);
+        outboxRepository.discardPending(b.getId(), OutboxType.CONFIRM);
+        b.setRoomId(roomId);
         Booking saved = bookingRepository.save(b);
-        log.info("confirmed bookingId={} correlationId={}", saved.getId(), correlationId);
+        outboxRelay.enqueue(OutboxMessage.confirm(saved));
         return saved;
     }
 
@@ -75,23 +260,78 @@ public class BookingService {
         }
         b.setStatus(BookingStatus.CANCELLED);
         log.warn("cancelAndCompensate bookingId={} correlationId={} roomId={}", b.getId(), correlationId, b.getRoomId());
-        hotelClient.release(b.getRoomId(), correlationId);
+        outboxRepository.discardPending(b.getId(), OutboxType.CONFIRM);
+        // released by the outbox relay once this transaction commits
+        outboxRelay.enqueue(OutboxMessage.release(b));
         Booking saved = bookingRepository.save(b);
+        eventStream.publish(saved);
         log.info("cancelled bookingId={} correlationId={}", saved.getId(), correlationId);
         return saved;
     }
 
     @Transactional(readOnly = true)
     public org.springframework.data.domain.Page<Booking> findForUser(Long userId, org.springframework.data.domain.Pageable pageable) {
-        User user = userRepository.findById(userId).orElseThrow();
-        return bookingRepository.findByUser(user, pageable);
+        return bookingRepository.findByUserId(userId, pageable);
     }
 
+    /**
+     * Keyset page of the user's bookings, newest first. Pass {@code null} position for the first page.
+     * Fetches one row more than {@code size} so that the caller can tell whether there is a next page.
+     */
     @Transactional(readOnly = true)
-    public java.util.List<Booking> findForUser(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow();
-        return bookingRepository.findByUser(user, org.springframework.data.domain.Pageable.unpaged()).getContent();
+    public List<Booking> findForUserBefore(Long userId, Instant createdAt, Long id, int size) {
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.ofSize(size + 1);
+        return createdAt == null
+                ? bookingRepository.findLatestByUserId(userId, limit)
+                : bookingRepository.findByUserIdBefore(userId, createdAt, id, limit);
     }
-}
 
+    /**
+     * Same as {@link #findForUserBefore} but merges in archived bookings: both tables are read with the same keyset
+     * limit and the two ordered slices are merged, so a page still costs two index range scans.
+     */
+    @Transactional(readOnly = true)
+    public List<Booking> findHistoryBefore(Long userId, Instant createdAt, Long id, int size) {
+        org.springframework.data.domain.Pageable limit = org.springframework.data.domain.PageRequest.ofSize(size + 1);
+        List<Booking> hot = findForUserBefore(userId, createdAt, id, size);
+        List<ArchivedBooking> cold = createdAt == null
+                ? archiveRepository.findLatestByUserId(userId, limit)
+                : archiveRepository.findByUserIdBefore(userId, createdAt, id, limit);
+        List<Booking> merged = new ArrayList<>(hot.size() + cold.size());
+        int i = 0;
+        int j = 0;
+        while (merged.size() <= size && (i < hot.size() || j < cold.size())) {
+            if (j == cold.size() || (i < hot.size() && newer(hot.get(i), cold.get(j)))) {
+                merged.add(hot.get(i++));
+            } else {
+                merged.add(cold.get(j++).toBooking());
+            }
+        }
+        return merged;
+    }
+
+    private static boolean newer(Booking b, ArchivedBooking a) {
+        int cmp = b.getCreatedAt().compareTo(a.getCreatedAt());
+        return cmp > 0 || (cmp == 0 && b.getId() > a.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public long countForUser(Long userId, boolean includeArchived) {
+        long count = bookingRepository.countByUserId(userId);
+        return includeArchived ? count + archiveRepository.countByUserId(userId) : count;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Booking> findOwned(Long userId, Long bookingId) {
+        return bookingRepository.findByIdAndUserId(bookingId, userId);
+    }
 
+    /**
+     * Looks the booking up in the live table first and falls back to the archive.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Booking> findOwnedWithHistory(Long userId, Long bookingId) {
+        return findOwned(userId, bookingId)
+                .or(() -> archiveRepository.findByIdAndUserId(bookingId, userId).map(ArchivedBooking::toBooking));
+    }
+}
@@ -0,0 +1,256 @@
+package com.mephi.task.booking.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.AvailabilityRequest;
+import com.mephi.task.booking.client.dto.BatchAvailabilityRequest;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.domain.OutboxStatus;
+import com.mephi.task.booking.domain.OutboxType;
+import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.repo.OutboxMessageRepository;
+
+import feign.FeignException;
+
+/**
+ * Delivers outbox messages to hotel-service.
+ * <p>
+ * Messages are stored in the same transaction as the booking change. The request thread dispatches them right away
+ * (confirm from {@link BookingService#confirm}, release after the compensating transaction commits); the scheduled
+ * relay only picks up what is still NEW after {@code booking.outbox.grace-ms}, i.e. messages whose eager dispatch
+ * failed or never happened because the process died. Remote calls are always made outside a database transaction.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final HotelClient hotelClient;
+    private final BookingEventStream eventStream;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate newTx;
+
+    @Value("${booking.outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${booking.outbox.grace-ms:10000}")
+    private long graceMs;
+    @Value("${booking.outbox.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${booking.outbox.backoff-ms:1000}")
+    private long backoffMs;
+    @Value("${booking.outbox.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    public OutboxRelay(OutboxMessageRepository outboxRepository,
+                       BookingRepository bookingRepository,
+                       HotelClient hotelClient,
+                       BookingEventStream eventStream,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.bookingRepository = bookingRepository;
+        this.hotelClient = hotelClient;
+        this.eventStream = eventStream;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Stores a message in the current transaction. RELEASE messages are additionally dispatched once it commits.
+     */
+    public OutboxMessage enqueue(OutboxMessage message) {
+        message.setNextAttemptAt(message.getCreatedAt().plusMillis(graceMs));
+        OutboxMessage saved = outboxRepository.save(message);
+        if (saved.getType() == OutboxType.RELEASE && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tryDispatch(saved, newTx, Instant.now());
+                }
+            });
+        }
+        return saved;
+    }
+
+    /**
+     * Sends the message and records the outcome; exceptions from hotel-service are propagated to the caller.
+     *
+     * @return the booking after the outcome has been applied, or {@code null} if it no longer exists
+     */
+    public Booking dispatch(OutboxMessage message) {
+        send(message);
+        return tx.execute(status -> complete(message.getId()));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval-ms:2000}",
+            initialDelayString = "${booking.outbox.relay-interval-ms:2000}")
+    public void drain() {
+        drain(Instant.now());
+    }
+
+    /**
+     * Dispatches the NEW messages due at {@code now}; retries of failed ones are scheduled relative to it.
+     *
+     * @return number of messages attempted
+     */
+    public int drain(Instant now) {
+        List<OutboxMessage> batch = outboxRepository.findDue(OutboxStatus.NEW, now, PageRequest.ofSize(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        log.info("outbox relay batch size={}", batch.size());
+        for (OutboxMessage message : batch) {
+            tryDispatch(message, tx, now);
+        }
+        return batch.size();
+    }
+
+    private void tryDispatch(OutboxMessage message, TransactionTemplate template, Instant now) {
+        try {
+            send(message);
+            template.executeWithoutResult(status -> complete(message.getId()));
+        } catch (Exception ex) {
+            log.warn("outbox dispatch failed messageId={} type={} bookingId={}: {}",
+                    message.getId(), message.getType(), message.getBookingId(), ex.getMessage());
+            template.executeWithoutResult(status -> fail(message.getId(), ex, now));
+        }
+    }
+
+    private void send(OutboxMessage m) {
+        if (m.getType() == OutboxType.CONFIRM) {
+            hotelClient.confirmAvailability(m.getRoomId(),
+                    new AvailabilityRequest(m.getStartDate(), m.getEndDate(), m.getRequestId(), String.valueOf(m.getBookingId())));
+        } else if (m.getType() == OutboxType.CONFIRM_GROUP) {
+            List<BatchAvailabilityRequest.Item> items = bookingRepository.findByGroupIdOrderByIdAsc(m.getRequestId()).stream()
+                    .map(b -> new BatchAvailabilityRequest.Item(b.getRoomId(), b.getStartDate(), b.getEndDate(),
+                            b.getRequestId(), String.valueOf(b.getId())))
+                    .toList();
+            hotelClient.confirmBatch(new BatchAvailabilityRequest(items));
+        } else {
+            hotelClient.release(m.getRoomId(), m.getRequestId());
+        }
+    }
+
+    private Booking complete(Long messageId) {
+        OutboxMessage m = outboxRepository.findById(messageId).orElseThrow();
+        OutboxStatus previous = m.getStatus();
+        m.setAttempts(m.getAttempts() + 1);
+        if (previous == OutboxStatus.NEW) {
+            m.setStatus(OutboxStatus.SENT);
+        }
+        outboxRepository.save(m);
+        if (m.getType() == OutboxType.RELEASE) {
+            return null;
+        }
+        if (m.getType() == OutboxType.CONFIRM_GROUP) {
+            return completeGroup(m, previous);
+        }
+        Booking b = bookingRepository.findById(m.getBookingId()).orElse(null);
+        if (b != null && b.getStatus() == BookingStatus.PENDING && previous == OutboxStatus.NEW) {
+            b.setStatus(BookingStatus.CONFIRMED);
+            eventStream.publish(b);
+            return bookingRepository.save(b);
+        }
+        if (b == null || b.getStatus() == BookingStatus.CANCELLED) {
+            // the hold was created after the booking had been cancelled: release it again
+            log.warn("outbox confirm completed for cancelled bookingId={}, releasing hold", m.getBookingId());
+            enqueue(releaseFor(m));
+        }
+        return b;
+    }
+
+    private Booking completeGroup(OutboxMessage m, OutboxStatus previous) {
+        List<Booking> group = bookingRepository.findByGroupIdOrderByIdAsc(m.getRequestId());
+        boolean intact = previous == OutboxStatus.NEW
+                && group.stream().noneMatch(b -> b.getStatus() == BookingStatus.CANCELLED);
+        if (!intact) {
+            // the group was cancelled while hotel-service was holding its rooms: cancel the rest and release all holds
+            log.warn("outbox group confirm completed for cancelled groupId={}, releasing holds", m.getRequestId());
+        }
+        for (Booking b : group) {
+            if (intact && b.getStatus() == BookingStatus.PENDING) {
+                b.setStatus(BookingStatus.CONFIRMED);
+                bookingRepository.save(b);
+                eventStream.publish(b);
+            } else if (!intact) {
+                boolean changed = b.getStatus() != BookingStatus.CANCELLED;
+                b.setStatus(BookingStatus.CANCELLED);
+                bookingRepository.save(b);
+                enqueue(OutboxMessage.release(b));
+                if (changed) {
+                    eventStream.publish(b);
+                }
+            }
+        }
+        return group.isEmpty() ? null : group.get(0);
+    }
+
+    private void fail(Long messageId, Exception ex, Instant now) {
+        OutboxMessage m = outboxRepository.findById(messageId).orElseThrow();
+        if (m.getStatus() != OutboxStatus.NEW) {
+            return;
+        }
+        m.setAttempts(m.getAttempts() + 1);
+        String error = String.valueOf(ex.getMessage());
+        m.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+        boolean conflict = ex instanceof FeignException.Conflict;
+        if (!conflict && m.getAttempts() < maxAttempts) {
+            m.setNextAttemptAt(now.plus(backoff(m.getAttempts())));
+            outboxRepository.save(m);
+            return;
+        }
+        m.setStatus(OutboxStatus.FAILED);
+        outboxRepository.save(m);
+        log.error("outbox message failed permanently messageId={} type={} bookingId={} attempts={}",
+                m.getId(), m.getType(), m.getBookingId(), m.getAttempts());
+        List<Booking> affected = switch (m.getType()) {
+            case CONFIRM -> bookingRepository.findById(m.getBookingId()).stream().toList();
+            case CONFIRM_GROUP -> bookingRepository.findByGroupIdOrderByIdAsc(m.getRequestId());
+            case RELEASE -> List.of();
+        };
+        affected.stream()
+                .filter(b -> b.getStatus() == BookingStatus.PENDING)
+                .forEach(b -> {
+                    b.setStatus(BookingStatus.CANCELLED);
+                    bookingRepository.save(b);
+                    eventStream.publish(b);
+                    if (!conflict) {
+                        // the hold may have been created by an attempt whose response was lost
+                        enqueue(OutboxMessage.release(b));
+                    }
+                });
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = backoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMs));
+    }
+
+    private static OutboxMessage releaseFor(OutboxMessage confirm) {
+        OutboxMessage m = new OutboxMessage();
+        m.setType(OutboxType.RELEASE);
+        m.setStatus(OutboxStatus.NEW);
+        m.setBookingId(confirm.getBookingId());
+        m.setRoomId(confirm.getRoomId());
+        m.setRequestId(confirm.getRequestId());
+        m.setCreatedAt(Instant.now());
+        return m;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mephi.task.booking.service;
+
+/**
+ * Thrown when the password hashing executor is saturated; mapped to 503 so that clients back off.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,189 @@
+package com.mephi.task.booking.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.repo.BookingRepository;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Resolves bookings that stayed PENDING longer than {@code booking.pending-sweep.ttl}, e.g. because the process died
+ * between {@link BookingService#createPending} and the confirm, or the outbox gave up.
+ * <p>
+ * Each stuck booking (or group) is first confirmed again with its original requestId, which hotel-service treats
+ * idempotently. It is cancelled, and its hold released through the outbox, only when hotel-service definitively
+ * refuses the hold (404 or 409). Any other failure (timeouts, 5xx, an open circuit, shedding load) leaves the booking
+ * for the next sweep, since the hold may well exist.
+ * <p>
+ * A booking is leased with {@code booking.pending-sweep.lease} before it is resolved, so that when several replicas
+ * sweep at the same time each booking is resolved by one of them.
+ */
+@Component
+public class PendingBookingSweeper {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PendingBookingSweeper.class);
+
+    public enum Outcome { CONFIRMED, CANCELLED, DEFERRED }
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry registry;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${booking.pending-sweep.ttl:5m}")
+    private Duration ttl;
+    @Value("${booking.pending-sweep.batch-size:50}")
+    private int batchSize;
+    @Value("${booking.pending-sweep.max-batches:10}")
+    private int maxBatches;
+    @Value("${booking.pending-sweep.lease:2m}")
+    private Duration lease;
+
+    public PendingBookingSweeper(BookingService bookingService,
+                                 BookingRepository bookingRepository,
+                                 @Qualifier("pendingSweepExecutor") ThreadPoolTaskExecutor executor,
+                                 MeterRegistry registry) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.executor = executor;
+        this.registry = registry;
+        Gauge.builder("booking.pending.sweep.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest PENDING booking at the last sweep")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.pending-sweep.interval-ms:60000}",
+            initialDelayString = "${booking.pending-sweep.interval-ms:60000}")
+    public void run() {
+        sweep(Instant.now().minus(ttl));
+    }
+
+    /**
+     * Resolves PENDING bookings created before {@code cutoff}, one batch at a time.
+     *
+     * @return number of bookings confirmed or cancelled
+     */
+    public int sweep(Instant cutoff) {
+        int resolved = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<Booking> batch = bookingRepository.findPendingCreatedBefore(cutoff, Instant.now(), PageRequest.ofSize(batchSize));
+            List<Outcome> outcomes = resolve(batch);
+            resolved += (int) outcomes.stream().filter(o -> o != Outcome.DEFERRED).count();
+            // deferred bookings would come back in the next batch: stop until the next run
+            if (batch.size() < batchSize || outcomes.contains(Outcome.DEFERRED)) {
+                break;
+            }
+        }
+        Instant now = Instant.now();
+        lagSeconds.set(bookingRepository.findFirstByStatusOrderByCreatedAtAsc(BookingStatus.PENDING)
+                .map(b -> Duration.between(b.getCreatedAt(), now).toSeconds())
+                .orElse(0L));
+        if (resolved > 0) {
+            log.info("pending sweep resolved {} bookings created before {}", resolved, cutoff);
+        }
+        return resolved;
+    }
+
+    private List<Outcome> resolve(List<Booking> batch) {
+        Set<String> groups = new HashSet<>();
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>();
+        Instant now = Instant.now();
+        Instant until = now.plus(lease);
+        for (Booking b : batch) {
+            if (b.getGroupId() != null) {
+                if (groups.add(b.getGroupId()) && bookingRepository.claimGroupForSweep(b.getGroupId(), now, until) > 0) {
+                    futures.add(CompletableFuture.supplyAsync(() -> resolveGroup(b.getGroupId()), executor));
+                }
+            } else if (bookingRepository.claimForSweep(b.getId(), now, until) > 0) {
+                futures.add(CompletableFuture.supplyAsync(() -> resolveSingle(b), executor));
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private Outcome resolveSingle(Booking b) {
+        try {
+            bookingService.confirm(b.getId());
+            return record(Outcome.CONFIRMED, b.getRequestId());
+        } catch (Exception ex) {
+            if (!isDefinitive(ex)) {
+                log.warn("pending sweep confirm deferred bookingId={} requestId={}: {}", b.getId(), b.getRequestId(), ex.toString());
+                return record(Outcome.DEFERRED, b.getRequestId());
+            }
+            log.warn("pending sweep confirm refused bookingId={} requestId={}: {}", b.getId(), b.getRequestId(), ex.getMessage());
+            try {
+                bookingService.cancelAndCompensate(b.getId(), b.getRequestId());
+                return record(Outcome.CANCELLED, b.getRequestId());
+            } catch (Exception cancelEx) {
+                log.error("pending sweep cancel failed bookingId={}", b.getId(), cancelEx);
+                return record(Outcome.DEFERRED, b.getRequestId());
+            }
+        }
+    }
+
+    private Outcome resolveGroup(String groupId) {
+        try {
+            bookingService.confirmGroup(groupId);
+            return record(Outcome.CONFIRMED, groupId);
+        } catch (Exception ex) {
+            if (!isDefinitive(ex)) {
+                log.warn("pending sweep group confirm deferred groupId={}: {}", groupId, ex.toString());
+                return record(Outcome.DEFERRED, groupId);
+            }
+            log.warn("pending sweep group confirm refused groupId={}: {}", groupId, ex.getMessage());
+            try {
+                if (ex instanceof FeignException.Conflict) {
+                    // hotel-service rolled back the whole batch: none of the rooms is held
+                    Set<String> notHeld = bookingRepository.findByGroupIdOrderByIdAsc(groupId).stream()
+                            .map(Booking::getRequestId)
+                            .collect(Collectors.toSet());
+                    bookingService.cancelGroupAndCompensate(groupId, notHeld);
+                } else {
+                    bookingService.cancelGroupAndCompensate(groupId);
+                }
+                return record(Outcome.CANCELLED, groupId);
+            } catch (Exception cancelEx) {
+                log.error("pending sweep group cancel failed groupId={}", groupId, cancelEx);
+                return record(Outcome.DEFERRED, groupId);
+            }
+        }
+    }
+
+    /**
+     * Whether hotel-service (or the booking itself) has settled that the hold will not be made. Everything else,
+     * including errors that {@code hotel-confirm} gave up retrying, may have created the hold and is retried later.
+     */
+    private static boolean isDefinitive(Exception ex) {
+        return ex instanceof FeignException.NotFound
+                || ex instanceof FeignException.Conflict
+                // the booking was cancelled meanwhile; cancelling again only makes sure the hold is released
+                || ex instanceof IllegalStateException;
+    }
+
+    private Outcome record(Outcome outcome, String requestId) {
+        registry.counter("booking.pending.sweep", "outcome", outcome.name().toLowerCase()).increment();
+        log.info("pending sweep {} requestId={}", outcome, requestId);
+        return outcome;
+    }
+}
@@ -0,0 +1,122 @@
+package com.mephi.task.booking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of one reconciliation run, updated while the run is in progress.
+ */
+public class ReconciliationReport {
+
+    private static final int MAX_SAMPLES = 100;
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    public enum Discrepancy {
+        // CONFIRMED booking without a hold: the room may be given to someone else
+        MISSING_HOLD,
+        // hold of a cancelled or unknown booking: the room is blocked for nobody
+        ORPHAN_HOLD,
+        // CONFIRMED booking whose hold is on another room
+        ROOM_MISMATCH
+    }
+
+    private final boolean repair;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong bookings = new AtomicLong();
+    private final AtomicLong holds = new AtomicLong();
+    private final AtomicInteger missingHolds = new AtomicInteger();
+    private final AtomicInteger orphanHolds = new AtomicInteger();
+    private final AtomicInteger roomMismatches = new AtomicInteger();
+    private final AtomicInteger repaired = new AtomicInteger();
+    private final List<String> samples = Collections.synchronizedList(new ArrayList<>());
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    ReconciliationReport(boolean repair) {
+        this.repair = repair;
+    }
+
+    void scanned(int bookingRows, int holdRows) {
+        bookings.addAndGet(bookingRows);
+        holds.addAndGet(holdRows);
+    }
+
+    void found(Discrepancy type, String requestId) {
+        switch (type) {
+            case MISSING_HOLD -> missingHolds.incrementAndGet();
+            case ORPHAN_HOLD -> orphanHolds.incrementAndGet();
+            case ROOM_MISMATCH -> roomMismatches.incrementAndGet();
+        }
+        synchronized (samples) {
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(type + " " + requestId);
+            }
+        }
+    }
+
+    void repaired() {
+        repaired.incrementAndGet();
+    }
+
+    void finish(Status outcome, String error) {
+        this.error = error;
+        this.status = outcome;
+        this.finishedAt = Instant.now();
+    }
+
+    public boolean isRepair() {
+        return repair;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getBookings() {
+        return bookings.get();
+    }
+
+    public long getHolds() {
+        return holds.get();
+    }
+
+    public int getMissingHolds() {
+        return missingHolds.get();
+    }
+
+    public int getOrphanHolds() {
+        return orphanHolds.get();
+    }
+
+    public int getRoomMismatches() {
+        return roomMismatches.get();
+    }
+
+    public int getRepaired() {
+        return repaired.get();
+    }
+
+    public List<String> getSamples() {
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
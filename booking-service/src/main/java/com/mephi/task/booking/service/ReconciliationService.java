@@ -0,0 +1,242 @@
+package com.mephi.task.booking.service;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.HoldDto;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.service.ReconciliationReport.Discrepancy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compares bookings with hotel-service holds and reports (optionally repairs) the differences.
+ * <p>
+ * Both sides are read as keyset pages ordered by requestId and merge-joined, so memory stays at two pages no matter
+ * how many rows are compared. Only bookings and holds that have not ended yet are compared. Reads are paced to
+ * {@code booking.reconciliation.rows-per-second} so that a full run can be made while the system is in use.
+ * Every repair re-reads the booking first, since the two pages are not a consistent snapshot.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final BookingRepository bookingRepository;
+    private final HotelClient hotelClient;
+    private final OutboxRelay outboxRelay;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate tx;
+    private final MeterRegistry registry;
+    private final AtomicReference<ReconciliationReport> last = new AtomicReference<>();
+
+    @Value("${booking.reconciliation.chunk-size:500}")
+    private int chunkSize;
+    @Value("${booking.reconciliation.rows-per-second:2000}")
+    private int rowsPerSecond;
+    @Value("${booking.reconciliation.scheduled-repair:false}")
+    private boolean scheduledRepair;
+
+    public ReconciliationService(BookingRepository bookingRepository,
+                                 HotelClient hotelClient,
+                                 OutboxRelay outboxRelay,
+                                 @Qualifier("reconciliationExecutor") ThreadPoolTaskExecutor executor,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry registry) {
+        this.bookingRepository = bookingRepository;
+        this.hotelClient = hotelClient;
+        this.outboxRelay = outboxRelay;
+        this.executor = executor;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.registry = registry;
+    }
+
+    @Scheduled(cron = "${booking.reconciliation.cron:-}")
+    public void scheduled() {
+        start(scheduledRepair);
+    }
+
+    /**
+     * Starts a run in the background unless one is already in progress.
+     *
+     * @return the report of the new run, or empty if another run is still going
+     */
+    public Optional<ReconciliationReport> start(boolean repair) {
+        ReconciliationReport previous = last.get();
+        if (previous != null && previous.getStatus() == ReconciliationReport.Status.RUNNING) {
+            return Optional.empty();
+        }
+        ReconciliationReport report = new ReconciliationReport(repair);
+        if (!last.compareAndSet(previous, report)) {
+            return Optional.empty();
+        }
+        try {
+            executor.execute(() -> run(report));
+        } catch (TaskRejectedException ex) {
+            report.finish(ReconciliationReport.Status.FAILED, "rejected");
+            throw ex;
+        }
+        return Optional.of(report);
+    }
+
+    public Optional<ReconciliationReport> last() {
+        return Optional.ofNullable(last.get());
+    }
+
+    private void run(ReconciliationReport report) {
+        log.info("reconciliation started repair={}", report.isRepair());
+        try {
+            merge(report, LocalDate.now());
+            report.finish(ReconciliationReport.Status.DONE, null);
+            log.info("reconciliation done bookings={} holds={} missingHolds={} orphanHolds={} roomMismatches={} repaired={}",
+                    report.getBookings(), report.getHolds(), report.getMissingHolds(), report.getOrphanHolds(),
+                    report.getRoomMismatches(), report.getRepaired());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            report.finish(ReconciliationReport.Status.FAILED, "interrupted");
+        } catch (RuntimeException ex) {
+            log.error("reconciliation failed after bookings={} holds={}", report.getBookings(), report.getHolds(), ex);
+            report.finish(ReconciliationReport.Status.FAILED, ex.getMessage());
+        }
+    }
+
+    private void merge(ReconciliationReport report, LocalDate from) throws InterruptedException {
+        Deque<Booking> bookings = new ArrayDeque<>();
+        Deque<HoldDto> holds = new ArrayDeque<>();
+        String bookingCursor = "";
+        String holdCursor = "";
+        boolean bookingsDone = false;
+        boolean holdsDone = false;
+        long started = System.nanoTime();
+        long rows = 0;
+        while (true) {
+            if (bookings.isEmpty() && !bookingsDone) {
+                List<Booking> page = bookingRepository.findPageAfter(from, bookingCursor, PageRequest.ofSize(chunkSize));
+                bookingCursor = append(bookings, page, Booking::getRequestId, bookingCursor);
+                bookingsDone = page.size() < chunkSize;
+                report.scanned(page.size(), 0);
+                rows += page.size();
+                pace(started, rows);
+            }
+            if (holds.isEmpty() && !holdsDone) {
+                List<HoldDto> page = hotelClient.holds(from, holdCursor, chunkSize);
+                holdCursor = append(holds, page, HoldDto::getRequestId, holdCursor);
+                holdsDone = page.size() < chunkSize;
+                report.scanned(0, page.size());
+                rows += page.size();
+                pace(started, rows);
+            }
+            if (bookings.isEmpty() && holds.isEmpty()) {
+                return;
+            }
+            Booking b = bookings.peekFirst();
+            HoldDto h = holds.peekFirst();
+            int cmp = b == null ? 1 : h == null ? -1 : b.getRequestId().compareTo(h.getRequestId());
+            if (cmp < 0) {
+                bookings.pollFirst();
+                if (b.getStatus() == BookingStatus.CONFIRMED) {
+                    found(report, Discrepancy.MISSING_HOLD, b.getRequestId());
+                    if (report.isRepair()) {
+                        repairMissingHold(report, b.getRequestId());
+                    }
+                }
+            } else if (cmp > 0) {
+                holds.pollFirst();
+                found(report, Discrepancy.ORPHAN_HOLD, h.getRequestId());
+                if (report.isRepair()) {
+                    repairOrphanHold(report, h);
+                }
+            } else {
+                bookings.pollFirst();
+                holds.pollFirst();
+                if (b.getStatus() == BookingStatus.CANCELLED) {
+                    found(report, Discrepancy.ORPHAN_HOLD, h.getRequestId());
+                    if (report.isRepair()) {
+                        repairOrphanHold(report, h);
+                    }
+                } else if (b.getStatus() == BookingStatus.CONFIRMED && !b.getRoomId().equals(h.getRoomId())) {
+                    // reported only: which of the two rooms the guest should get is not for a background job to decide
+                    found(report, Discrepancy.ROOM_MISMATCH, b.getRequestId());
+                }
+            }
+        }
+    }
+
+    // both services must order by requestId the same way, otherwise the merge would report false discrepancies
+    private static <T> String append(Deque<T> queue, List<T> page, Function<T, String> key, String cursor) {
+        String previous = cursor;
+        for (T item : page) {
+            String current = key.apply(item);
+            if (current.compareTo(previous) <= 0) {
+                throw new IllegalStateException("page is not ordered by requestId at " + current);
+            }
+            previous = current;
+            queue.addLast(item);
+        }
+        return previous;
+    }
+
+    private void repairMissingHold(ReconciliationReport report, String requestId) {
+        boolean enqueued = Boolean.TRUE.equals(tx.execute(status -> bookingRepository.findByRequestId(requestId)
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED)
+                .map(b -> outboxRelay.enqueue(OutboxMessage.confirm(b)) != null)
+                .orElse(false)));
+        if (enqueued) {
+            report.repaired();
+        }
+    }
+
+    private void repairOrphanHold(ReconciliationReport report, HoldDto hold) {
+        Optional<Booking> current = bookingRepository.findByRequestId(hold.getRequestId());
+        if (current.isPresent()) {
+            boolean enqueued = Boolean.TRUE.equals(tx.execute(status -> bookingRepository.findByRequestId(hold.getRequestId())
+                    .filter(b -> b.getStatus() == BookingStatus.CANCELLED)
+                    .map(b -> outboxRelay.enqueue(OutboxMessage.release(b)) != null)
+                    .orElse(false)));
+            if (enqueued) {
+                report.repaired();
+            }
+            return;
+        }
+        // no booking row to keep consistent with; a failed release is found again by the next run
+        try {
+            hotelClient.release(hold.getRoomId(), hold.getRequestId());
+            report.repaired();
+        } catch (RuntimeException ex) {
+            log.warn("reconciliation release failed requestId={} roomId={}: {}", hold.getRequestId(), hold.getRoomId(), ex.getMessage());
+        }
+    }
+
+    private void found(ReconciliationReport report, Discrepancy type, String requestId) {
+        report.found(type, requestId);
+        registry.counter("booking.reconciliation.discrepancies", "type", type.name()).increment();
+        log.warn("reconciliation {} requestId={}", type, requestId);
+    }
+
+    private void pace(long startedNanos, long rows) throws InterruptedException {
+        long dueNanos = rows * 1_000_000_000L / Math.max(1, rowsPerSecond);
+        long aheadMillis = (dueNanos - (System.nanoTime() - startedNanos)) / 1_000_000L;
+        if (aheadMillis > 0) {
+            Thread.sleep(aheadMillis);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mephi.task.booking.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.RoomDto;
+
+/**
+ * Chooses rooms for auto-select bookings.
+ * <p>
+ * hotel-service returns rooms ranked by how often they were booked. If every request took the first one, concurrent
+ * requests would all race for the same room and all but one would get a conflict. Instead the top
+ * {@code booking.auto-select.spread} rooms are rotated by a hash of the requestId, so concurrent requests start on
+ * different rooms while a retried request starts on the same one. A spread of 1 or less keeps the ranked order.
+ */
+@Component
+public class RoomSelector {
+
+    private final HotelClient hotelClient;
+
+    @Value("${booking.auto-select.spread:5}")
+    private int spread;
+    @Value("${booking.auto-select.max-attempts:3}")
+    private int maxAttempts;
+
+    public RoomSelector(HotelClient hotelClient) {
+        this.hotelClient = hotelClient;
+    }
+
+    /**
+     * @return room ids to try in order, at most {@code booking.auto-select.max-attempts}
+     * @throws IllegalStateException if no room is available
+     */
+    public List<Long> candidates(LocalDate start, LocalDate end, String requestId) {
+        List<Long> ranked = hotelClient.recommend(start, end).stream().map(RoomDto::getId).toList();
+        if (ranked.isEmpty()) {
+            throw new IllegalStateException("No rooms available");
+        }
+        int top = Math.min(Math.max(spread, 1), ranked.size());
+        List<Long> ordered = new ArrayList<>(ranked);
+        Collections.rotate(ordered.subList(0, top), -Math.floorMod(requestId.hashCode(), top));
+        return ordered.subList(0, Math.min(Math.max(maxAttempts, 1), ordered.size()));
+    }
+}
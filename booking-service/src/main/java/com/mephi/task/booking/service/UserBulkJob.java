@@ -0,0 +1,113 @@
+package com.mephi.task.booking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a bulk user operation, updated by the worker and read by status requests.
+ */
+public class UserBulkJob {
+
+    private static final int MAX_ERRORS = 100;
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private final String id;
+    private final int total;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger disabled = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+
+    UserBulkJob(String id, int total) {
+        this.id = id;
+        this.total = total;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void finish(Status outcome) {
+        status = outcome;
+        finishedAt = Instant.now();
+    }
+
+    void progress(int items) {
+        processed.addAndGet(items);
+    }
+
+    void created(int count) {
+        created.addAndGet(count);
+    }
+
+    void disabled(int count) {
+        disabled.addAndGet(count);
+    }
+
+    void deleted(int count) {
+        deleted.addAndGet(count);
+    }
+
+    // only the first errors are kept, so a job over a bad input file cannot grow without bound
+    void error(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getProcessed() {
+        return processed.get();
+    }
+
+    public int getCreated() {
+        return created.get();
+    }
+
+    public int getDisabled() {
+        return disabled.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+}
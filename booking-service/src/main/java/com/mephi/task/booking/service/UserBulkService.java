@@ -0,0 +1,177 @@
+package com.mephi.task.booking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.repo.UserRepository;
+
+/**
+ * Creates, disables and deletes users in bulk. Work is done in chunks of {@code booking.admin.bulk.chunk-size}
+ * with one short transaction per chunk, so a large request never holds a single long transaction.
+ * Jobs submitted with {@link #submit} run on {@code userBulkExecutor} and can be polled with {@link #find}.
+ */
+@Service
+public class UserBulkService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(UserBulkService.class);
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashing;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<String, UserBulkJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${booking.admin.bulk.chunk-size:100}")
+    private int chunkSize;
+    @Value("${booking.admin.bulk.retention-ms:3600000}")
+    private long retentionMs;
+
+    public UserBulkService(UserService userService,
+                           UserRepository userRepository,
+                           PasswordHashingService passwordHashing,
+                           @Qualifier("userBulkExecutor") ThreadPoolTaskExecutor executor) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.passwordHashing = passwordHashing;
+        this.executor = executor;
+    }
+
+    public record NewUser(String username, String password, String role) {
+    }
+
+    public record Command(List<NewUser> create, List<Long> disable, List<Long> delete) {
+
+        public Command {
+            create = create == null ? List.of() : create;
+            disable = disable == null ? List.of() : disable;
+            delete = delete == null ? List.of() : delete;
+        }
+
+        public int size() {
+            return create.size() + disable.size() + delete.size();
+        }
+    }
+
+    /**
+     * Runs the command on the calling thread.
+     */
+    public UserBulkJob run(Command command) {
+        UserBulkJob job = new UserBulkJob(UUID.randomUUID().toString(), command.size());
+        execute(job, command);
+        return job;
+    }
+
+    /**
+     * Queues the command for background execution.
+     *
+     * @throws TaskRejectedException if the job queue is full
+     */
+    public UserBulkJob submit(Command command) {
+        evictFinished();
+        UserBulkJob job = new UserBulkJob(UUID.randomUUID().toString(), command.size());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> execute(job, command));
+        } catch (TaskRejectedException ex) {
+            jobs.remove(job.getId());
+            throw ex;
+        }
+        log.info("bulk user job queued jobId={} items={}", job.getId(), job.getTotal());
+        return job;
+    }
+
+    public Optional<UserBulkJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void execute(UserBulkJob job, Command command) {
+        job.start();
+        try {
+            for (List<NewUser> chunk : chunks(command.create())) {
+                createChunk(job, chunk);
+            }
+            for (List<Long> chunk : chunks(command.disable())) {
+                List<Long> found = userService.disableAll(chunk);
+                job.disabled(found.size());
+                reportMissing(job, chunk, found);
+                job.progress(chunk.size());
+            }
+            for (List<Long> chunk : chunks(command.delete())) {
+                List<Long> found = userService.deleteAll(chunk);
+                job.deleted(found.size());
+                reportMissing(job, chunk, found);
+                job.progress(chunk.size());
+            }
+            job.finish(UserBulkJob.Status.DONE);
+        } catch (RuntimeException ex) {
+            log.error("bulk user job failed jobId={} processed={}", job.getId(), job.getProcessed(), ex);
+            job.error("job aborted: " + ex.getMessage());
+            job.finish(UserBulkJob.Status.FAILED);
+            return;
+        }
+        log.info("bulk user job done jobId={} created={} disabled={} deleted={} errors={}",
+                job.getId(), job.getCreated(), job.getDisabled(), job.getDeleted(), job.getErrors().size());
+    }
+
+    private void createChunk(UserBulkJob job, List<NewUser> chunk) {
+        Set<String> taken = new HashSet<>(userRepository.findExistingUsernames(chunk.stream().map(NewUser::username).toList()));
+        List<User> users = new ArrayList<>(chunk.size());
+        for (NewUser n : chunk) {
+            if (!taken.add(n.username())) {
+                job.error("username already exists: " + n.username());
+                continue;
+            }
+            // hashed one at a time and outside any transaction, see UserService#register
+            User u = new User();
+            u.setUsername(n.username());
+            u.setRole(n.role());
+            try {
+                u.setPassword(passwordHashing.encode(n.password()));
+            } catch (PasswordHashingRejectedException ex) {
+                job.error("user not created, hashing overloaded: " + n.username());
+                continue;
+            }
+            users.add(u);
+        }
+        try {
+            job.created(userRepository.saveAll(users).size());
+        } catch (DataIntegrityViolationException ex) {
+            // a concurrent request took one of the names after the check: the whole chunk was rolled back
+            job.error("chunk of " + users.size() + " users not created: " + ex.getMostSpecificCause().getMessage());
+        }
+        job.progress(chunk.size());
+    }
+
+    private static void reportMissing(UserBulkJob job, List<Long> requested, List<Long> found) {
+        Set<Long> present = new HashSet<>(found);
+        requested.stream().filter(id -> !present.contains(id)).forEach(id -> job.error("user not found: " + id));
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> result = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            result.add(items.subList(i, Math.min(items.size(), i + chunkSize)));
+        }
+        return result;
+    }
+
+    private void evictFinished() {
+        Instant cutoff = Instant.now().minusMillis(retentionMs);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt().isBefore(cutoff));
+    }
+}
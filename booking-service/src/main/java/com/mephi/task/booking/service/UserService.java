@@ -1,13 +1,16 @@
 package com.mephi.task.booking.service;
 
 import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.repo.ArchivedBookingRepository;
+import com.mephi.task.booking.repo.BookingRepository;
 import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.security.TokenRevocationCache;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -15,9 +18,12 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final PasswordHashingService passwordHashing;
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
+    private final TokenRevocationCache revocationCache;
 
-    @Transactional
+    // not @Transactional: hashing takes tens of milliseconds and must not hold a database connection
     public User register(String username, String rawPassword, String role) {
         Optional<User> existing = userRepository.findByUsername(username);
         if (existing.isPresent()) {
@@ -25,10 +31,55 @@ public class UserService {
         }
         User u = new User();
         u.setUsername(username);
-        u.setPassword(encoder.encode(rawPassword));
+        u.setPassword(passwordHashing.encode(rawPassword));
         u.setRole(role);
         return userRepository.save(u);
     }
-}
 
+    /**
+     * Checks the credentials and, if the stored hash uses an outdated BCrypt cost, replaces it with a fresh one.
+     */
+    public Optional<User> authenticate(String username, String rawPassword) {
+        Optional<User> user = userRepository.findByUsername(username)
+                .filter(User::isEnabled)
+                .filter(u -> passwordHashing.matches(rawPassword, u.getPassword()));
+        user.filter(u -> passwordHashing.needsRehash(u.getPassword()))
+                .ifPresent(u -> {
+                    u.setPassword(passwordHashing.encode(rawPassword));
+                    userRepository.save(u);
+                });
+        return user;
+    }
 
+    /**
+     * Deletes the users together with their live and archived bookings, one statement per table.
+     *
+     * @return ids of the users that existed
+     */
+    @Transactional
+    public List<Long> deleteAll(Collection<Long> ids) {
+        List<Long> existing = userRepository.findExistingIds(ids);
+        if (!existing.isEmpty()) {
+            bookingRepository.deleteByUserIdIn(existing);
+            archiveRepository.deleteByUserIdIn(existing);
+            userRepository.deleteAllByIdInBatch(existing);
+            existing.forEach(revocationCache::revokeAll);
+        }
+        return existing;
+    }
+
+    /**
+     * Disables the users and revokes their tokens; already disabled users are left untouched.
+     *
+     * @return ids of the users that existed
+     */
+    @Transactional
+    public List<Long> disableAll(Collection<Long> ids) {
+        List<Long> existing = userRepository.findExistingIds(ids);
+        if (!existing.isEmpty()) {
+            userRepository.disableByIdIn(existing);
+            existing.forEach(revocationCache::revokeAll);
+        }
+        return existing;
+    }
+}
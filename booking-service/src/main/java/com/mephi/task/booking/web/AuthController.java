@@ -1,16 +1,14 @@
 package com.mephi.task.booking.web;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.mephi.task.booking.domain.User;
-import com.mephi.task.booking.repo.UserRepository;
 import com.mephi.task.booking.security.JwtService;
 import com.mephi.task.booking.service.UserService;
 import com.mephi.task.booking.web.dto.AuthDtos;
@@ -29,9 +27,10 @@ import lombok.RequiredArgsConstructor;
 public class AuthController {
 
     private final UserService userService;
-    private final UserRepository userRepository;
     private final JwtService jwtService;
-    private final PasswordEncoder encoder = new BCryptPasswordEncoder();
+
+    @Value("${security.jwt.ttl-seconds:3600}")
+    private long ttlSeconds;
 
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Creates a new user account and returns JWT token")
@@ -41,7 +40,7 @@ public class AuthController {
     })
     public ResponseEntity<AuthDtos.TokenResponse> register(@Valid @RequestBody AuthDtos.RegisterRequest req) {
         User u = userService.register(req.getUsername(), req.getPassword(), "USER");
-        String token = jwtService.generateToken(u.getUsername(), u.getRole(), 3600);
+        String token = jwtService.generateToken(u.getId(), u.getUsername(), u.getRole(), u.getTokenVersion(), ttlSeconds);
         AuthDtos.TokenResponse resp = new AuthDtos.TokenResponse();
         resp.setToken(token);
         return ResponseEntity.status(HttpStatus.CREATED).body(resp);
@@ -51,14 +50,15 @@ public class AuthController {
     @Operation(summary = "Authenticate user", description = "Authenticates a user and returns JWT token")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Authentication successful"),
-            @ApiResponse(responseCode = "401", description = "Invalid credentials")
+            @ApiResponse(responseCode = "401", description = "Invalid credentials"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent logins, retry later")
     })
     public ResponseEntity<AuthDtos.TokenResponse> auth(@Valid @RequestBody AuthDtos.AuthRequest req) {
-        User u = userRepository.findByUsername(req.getUsername()).orElse(null);
-        if (u == null || !encoder.matches(req.getPassword(), u.getPassword())) {
+        User u = userService.authenticate(req.getUsername(), req.getPassword()).orElse(null);
+        if (u == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        String token = jwtService.generateToken(u.getUsername(), u.getRole(), 3600);
+        String token = jwtService.generateToken(u.getId(), u.getUsername(), u.getRole(), u.getTokenVersion(), ttlSeconds);
         AuthDtos.TokenResponse resp = new AuthDtos.TokenResponse();
         resp.setToken(token);
         return ResponseEntity.ok(resp);
@@ -1,28 +1,44 @@
 package com.mephi.task.booking.web;
 
-import java.time.LocalDate;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.mephi.task.booking.client.HotelClient;
-import com.mephi.task.booking.client.dto.RoomDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.booking.client.HotelOverloadedException;
+import com.mephi.task.booking.client.dto.BatchAvailabilityResponse;
 import com.mephi.task.booking.domain.Booking;
-import com.mephi.task.booking.domain.User;
-import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.security.CurrentUserResolver;
+import com.mephi.task.booking.service.BookingConfirmationWorker;
+import com.mephi.task.booking.service.BookingEventStream;
 import com.mephi.task.booking.service.BookingService;
+import com.mephi.task.booking.service.RoomSelector;
 import com.mephi.task.booking.web.dto.BookingDtos;
+import com.mephi.task.booking.web.dto.CursorPage;
 
+import feign.FeignException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -38,41 +54,106 @@ import lombok.RequiredArgsConstructor;
 public class BookingController {
 
     private final BookingService bookingService;
-    private final UserRepository userRepository;
-    private final HotelClient hotelClient;
+    private final CurrentUserResolver currentUser;
+    private final RoomSelector roomSelector;
+    private final BookingConfirmationWorker confirmationWorker;
+    private final BookingEventStream eventStream;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/booking")
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Create a booking", description = "Creates a new booking for the authenticated user")
+    @Operation(summary = "Create a booking", description = "Creates a new booking for the authenticated user. "
+            + "With async=true the PENDING booking is returned immediately and confirmed in the background; "
+            + "poll GET /api/booking/{id} for the outcome")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Booking successfully created"),
+            @ApiResponse(responseCode = "202", description = "Booking accepted for asynchronous confirmation"),
             @ApiResponse(responseCode = "400", description = "Invalid booking data"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
-            @ApiResponse(responseCode = "409", description = "Conflict - booking failed")
+            @ApiResponse(responseCode = "409", description = "Conflict - booking failed"),
+            @ApiResponse(responseCode = "503", description = "Confirmation queue is full or hotel-service is overloaded, retry later")
     })
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<Booking> create(
             @Valid @RequestBody BookingDtos.CreateBookingRequest req,
             Authentication auth) {
-        User user = userRepository.findByUsername(auth.getName()).orElseThrow();
+        Long userId = currentUser.userId(auth);
         if (!req.isAutoSelect() && req.getRoomId() == null) {
             return ResponseEntity.badRequest().build();
         }
         if (req.getStartDate() == null || req.getEndDate() == null || !req.getStartDate().isBefore(req.getEndDate())) {
             return ResponseEntity.badRequest().build();
         }
-        Long roomId = req.isAutoSelect() ? pickRoom(req.getStartDate(), req.getEndDate()) : req.getRoomId();
         String requestId = req.getRequestId();
-        Booking pending = bookingService.createPending(user.getId(), roomId, req.getStartDate(), req.getEndDate(), requestId);
+        List<Long> candidates = req.isAutoSelect()
+                ? roomSelector.candidates(req.getStartDate(), req.getEndDate(), requestId)
+                : List.of(req.getRoomId());
+        Booking pending = bookingService.createPending(userId, candidates.get(0), req.getStartDate(), req.getEndDate(), requestId);
+        if (req.isAsync()) {
+            return accept(pending, requestId);
+        }
+        if (pending.getStatus() != BookingStatus.PENDING) {
+            // retry of a finished booking, possibly archived already: its outcome is known
+            return pending.getStatus() == BookingStatus.CONFIRMED
+                    ? ResponseEntity.ok(pending)
+                    : ResponseEntity.status(409).build();
+        }
         try {
-            Booking confirmed = bookingService.confirm(pending.getId());
+            Booking confirmed = confirm(pending, candidates);
             return ResponseEntity.ok(confirmed);
+        } catch (HotelOverloadedException ex) {
+            // nothing was sent to hotel-service; answered with 503 by GlobalExceptionHandler
+            bookingService.cancelAndCompensate(pending.getId(), requestId);
+            throw ex;
         } catch (Exception ex) {
             bookingService.cancelAndCompensate(pending.getId(), requestId);
             return ResponseEntity.status(409).build();
         }
     }
 
+    @PostMapping("/booking/group")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Create a group booking", description = "Books several rooms for the same dates at once. "
+            + "Either all rooms are confirmed or all bookings of the group are cancelled; the response lists the outcome per room")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All rooms booked"),
+            @ApiResponse(responseCode = "400", description = "Invalid booking data"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "409", description = "At least one room could not be booked, the whole group is cancelled"),
+            @ApiResponse(responseCode = "503", description = "hotel-service is overloaded, retry later")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<BookingDtos.GroupBookingResponse> createGroup(
+            @Valid @RequestBody BookingDtos.CreateGroupBookingRequest req,
+            Authentication auth) {
+        Long userId = currentUser.userId(auth);
+        if (!req.getStartDate().isBefore(req.getEndDate())
+                || req.getRoomIds().stream().distinct().count() != req.getRoomIds().size()) {
+            return ResponseEntity.badRequest().build();
+        }
+        String groupId = req.getRequestId();
+        List<Booking> group = bookingService.createPendingGroup(userId, req.getRoomIds(), req.getStartDate(), req.getEndDate(), groupId);
+        if (group.stream().noneMatch(b -> b.getStatus() == BookingStatus.PENDING)) {
+            // retry of a finished group, possibly archived already
+            BookingDtos.GroupBookingResponse response = groupResponse(groupId, group,
+                    b -> b.getStatus() == BookingStatus.CONFIRMED ? "HELD" : null);
+            return response.isConfirmed() ? ResponseEntity.ok(response) : ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        try {
+            List<Booking> confirmed = bookingService.confirmGroup(groupId);
+            return ResponseEntity.ok(groupResponse(groupId, confirmed, b -> "HELD"));
+        } catch (HotelOverloadedException ex) {
+            bookingService.cancelGroupAndCompensate(groupId);
+            throw ex;
+        } catch (Exception ex) {
+            Map<String, String> outcomes = hotelOutcomes(ex);
+            // outcomes come only with a 409, after hotel-service has rolled back the whole batch
+            List<Booking> cancelled = bookingService.cancelGroupAndCompensate(groupId, outcomes.keySet());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(groupResponse(groupId, cancelled, b -> outcomes.get(b.getRequestId())));
+        }
+    }
+
     @GetMapping("/bookings")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Get user's bookings", description = "Returns paginated list of bookings for the authenticated user")
@@ -84,13 +165,60 @@ public class BookingController {
     public org.springframework.data.domain.Page<Booking> myBookings(
             @org.springframework.data.web.PageableDefault(size = 20) org.springframework.data.domain.Pageable pageable,
             Authentication auth) {
-        User user = userRepository.findByUsername(auth.getName()).orElseThrow();
-        return bookingService.findForUser(user.getId(), pageable);
+        Long userId = currentUser.userId(auth);
+        return bookingService.findForUser(userId, pageable);
+    }
+
+    @GetMapping("/bookings/scroll")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Scroll user's bookings", description = "Returns bookings newest first using a cursor instead of "
+            + "page numbers, so every page costs the same. Pass nextCursor from the previous response to get the next page; "
+            + "the total count is computed only with withTotal=true. Bookings moved to the archive are included only with "
+            + "includeArchived=true")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Bookings retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    public CursorPage<Booking> scrollBookings(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            Authentication auth) {
+        Long userId = currentUser.userId(auth);
+        int limit = Math.max(1, Math.min(size, 100));
+        BookingCursor position = cursor == null ? new BookingCursor(null, null) : BookingCursor.decode(cursor);
+        List<Booking> rows = includeArchived
+                ? bookingService.findHistoryBefore(userId, position.createdAt(), position.id(), limit)
+                : bookingService.findForUserBefore(userId, position.createdAt(), position.id(), limit);
+        boolean hasNext = rows.size() > limit;
+        List<Booking> items = hasNext ? rows.subList(0, limit) : rows;
+        String next = hasNext ? BookingCursor.of(items.get(items.size() - 1)).encode() : null;
+        Long total = withTotal ? bookingService.countForUser(userId, includeArchived) : null;
+        return new CursorPage<>(items, next, total);
+    }
+
+    @GetMapping(path = "/bookings/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Stream booking status changes", description = "Server-Sent Events stream of the user's bookings "
+            + "moving from PENDING to CONFIRMED or CANCELLED. Reconnect with Last-Event-ID to receive events missed meanwhile")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    public SseEmitter events(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            Authentication auth) {
+        return eventStream.subscribe(currentUser.userId(auth), lastEventId);
     }
 
     @GetMapping("/booking/{id}")
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Get booking by ID", description = "Returns a specific booking by ID")
+    @Operation(summary = "Get booking by ID", description = "Returns a specific booking by ID; "
+            + "archived bookings are looked up only with includeArchived=true")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Booking retrieved successfully"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
@@ -99,15 +227,49 @@ public class BookingController {
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<Booking> get(
             @PathVariable Long id, 
+            @RequestParam(defaultValue = "false") boolean includeArchived,
             Authentication auth) {
-        User user = userRepository.findByUsername(auth.getName()).orElseThrow();
-        return bookingService.findForUser(user.getId()).stream()
-                .filter(b -> b.getId().equals(id))
-                .findFirst()
+        Long userId = currentUser.userId(auth);
+        Optional<Booking> booking = includeArchived
+                ? bookingService.findOwnedWithHistory(userId, id)
+                : bookingService.findOwned(userId, id);
+        return booking
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/booking/{id}")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Change booking dates", description = "Moves a confirmed booking to new dates in the same room. "
+            + "The room stays held throughout; only the added days have to be free")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dates changed"),
+            @ApiResponse(responseCode = "400", description = "Invalid dates"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Booking not found"),
+            @ApiResponse(responseCode = "409", description = "New dates are taken or the booking is not confirmed"),
+            @ApiResponse(responseCode = "503", description = "hotel-service is overloaded, retry later")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<Booking> changeDates(
+            @PathVariable Long id,
+            @Valid @RequestBody BookingDtos.ChangeDatesRequest req,
+            Authentication auth) {
+        Long userId = currentUser.userId(auth);
+        if (!req.getStartDate().isBefore(req.getEndDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (bookingService.findOwned(userId, id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(bookingService.changeDates(id, req.getStartDate(), req.getEndDate()));
+        } catch (FeignException.Conflict | FeignException.NotFound | IllegalStateException ex) {
+            // the booking keeps its old dates
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @DeleteMapping("/booking/{id}")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Cancel a booking", description = "Cancels a booking and releases the room")
@@ -120,19 +282,58 @@ public class BookingController {
     public ResponseEntity<Void> cancel(
             @PathVariable Long id, 
             Authentication auth) {
-        User user = userRepository.findByUsername(auth.getName()).orElseThrow();
-        boolean owns = bookingService.findForUser(user.getId()).stream().anyMatch(b -> b.getId().equals(id));
-        if (!owns) return ResponseEntity.notFound().build();
+        Long userId = currentUser.userId(auth);
+        if (bookingService.findOwned(userId, id).isEmpty()) return ResponseEntity.notFound().build();
         bookingService.cancelAndCompensate(id, UUID.randomUUID().toString());
         return ResponseEntity.noContent().build();
     }
 
-    private Long pickRoom(LocalDate start, LocalDate end) {
-        List<RoomDto> rooms = hotelClient.recommend(start, end);
-        if (rooms.isEmpty()) {
-            throw new IllegalStateException("No rooms available");
+    private ResponseEntity<Booking> accept(Booking pending, String requestId) {
+        if (pending.getStatus() == BookingStatus.PENDING && !confirmationWorker.submit(pending.getId(), requestId)) {
+            bookingService.cancelAndCompensate(pending.getId(), requestId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/booking/" + pending.getId()))
+                .body(pending);
+    }
+
+    private static BookingDtos.GroupBookingResponse groupResponse(String groupId, List<Booking> group,
+                                                                  Function<Booking, String> outcome) {
+        List<BookingDtos.RoomOutcome> rooms = group.stream()
+                .map(b -> new BookingDtos.RoomOutcome(b.getRoomId(), b.getId(), b.getStatus().name(), outcome.apply(b)))
+                .toList();
+        boolean confirmed = group.stream().allMatch(b -> b.getStatus() == BookingStatus.CONFIRMED);
+        return new BookingDtos.GroupBookingResponse(groupId, confirmed, rooms);
+    }
+
+    // hotel-service answers a rejected batch with 409 and the outcome of every room
+    private Map<String, String> hotelOutcomes(Exception ex) {
+        if (!(ex instanceof FeignException.Conflict conflict)) {
+            return Map.of();
+        }
+        try {
+            BatchAvailabilityResponse body = objectMapper.readValue(conflict.contentUTF8(), BatchAvailabilityResponse.class);
+            return body.getResults().stream()
+                    .collect(Collectors.toMap(BatchAvailabilityResponse.Result::getRequestId, BatchAvailabilityResponse.Result::getOutcome));
+        } catch (Exception parseError) {
+            return Map.of();
+        }
+    }
+
+    // on a conflict an auto-selected booking moves on to the next candidate room
+    private Booking confirm(Booking pending, List<Long> candidates) {
+        int next = Math.max(candidates.indexOf(pending.getRoomId()), 0) + 1;
+        while (true) {
+            try {
+                return bookingService.confirm(pending.getId());
+            } catch (FeignException.Conflict conflict) {
+                if (next >= candidates.size()) {
+                    throw conflict;
+                }
+                pending = bookingService.reassignRoom(pending.getId(), candidates.get(next++));
+            }
         }
-        return rooms.get(0).getId();
     }
 }
 
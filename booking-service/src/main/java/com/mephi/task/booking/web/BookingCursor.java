@@ -0,0 +1,32 @@
+package com.mephi.task.booking.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.mephi.task.booking.domain.Booking;
+
+/**
+ * Opaque position in the (createdAt, id) ordering of a user's bookings.
+ */
+record BookingCursor(Instant createdAt, Long id) {
+
+    static BookingCursor of(Booking b) {
+        return new BookingCursor(b.getCreatedAt(), b.getId());
+    }
+
+    static BookingCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('_');
+            return new BookingCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,6 +2,8 @@ package com.mephi.task.booking.web;
 
 import java.time.Instant;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -9,6 +11,8 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.mephi.task.booking.client.HotelOverloadedException;
+import com.mephi.task.booking.service.PasswordHashingRejectedException;
 import com.mephi.task.booking.web.dto.ErrorDto;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,6 +38,13 @@ public class GlobalExceptionHandler {
         return error(HttpStatus.FORBIDDEN, "Access Denied", req);
     }
 
+    // the server is shedding load rather than failing: tell clients to come back shortly
+    @ExceptionHandler({PasswordHashingRejectedException.class, HotelOverloadedException.class, TaskRejectedException.class})
+    public ResponseEntity<ErrorDto> handleOverload(RuntimeException ex, HttpServletRequest req) {
+        ResponseEntity<ErrorDto> resp = error(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req);
+        return ResponseEntity.status(resp.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "1").body(resp.getBody());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDto> handleGeneral(Exception ex, HttpServletRequest req) {
         return error(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage(), req);
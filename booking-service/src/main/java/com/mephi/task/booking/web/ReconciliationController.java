@@ -0,0 +1,39 @@
+package com.mephi.task.booking.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mephi.task.booking.service.ReconciliationReport;
+import com.mephi.task.booking.service.ReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    /**
+     * Starts a reconciliation in the background; 409 if one is still running.
+     */
+    @PostMapping
+    public ResponseEntity<ReconciliationReport> start(@RequestParam(defaultValue = "false") boolean repair) {
+        return reconciliationService.start(repair)
+                .map(report -> ResponseEntity.status(HttpStatus.ACCEPTED).body(report))
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping
+    public ResponseEntity<ReconciliationReport> last() {
+        return reconciliationService.last()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
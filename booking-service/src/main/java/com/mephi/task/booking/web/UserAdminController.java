@@ -1,20 +1,30 @@
 package com.mephi.task.booking.web;
 
+import java.net.URI;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.mephi.task.booking.domain.User;
-import com.mephi.task.booking.repo.BookingRepository;
 import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.security.TokenRevocationCache;
+import com.mephi.task.booking.service.PasswordHashingService;
+import com.mephi.task.booking.service.UserBulkJob;
+import com.mephi.task.booking.service.UserBulkService;
+import com.mephi.task.booking.service.UserService;
+import com.mephi.task.booking.web.dto.UserBulkDtos.BulkUserRequest;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -25,8 +35,13 @@ import lombok.RequiredArgsConstructor;
 public class UserAdminController {
 
     private final UserRepository userRepository;
-    private final BookingRepository bookingRepository;
-    private final PasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final UserService userService;
+    private final UserBulkService userBulkService;
+    private final TokenRevocationCache revocationCache;
+    private final PasswordHashingService passwordHashing;
+
+    @Value("${booking.admin.bulk.sync-max-items:50}")
+    private int syncMaxItems;
 
     @PostMapping
     public ResponseEntity<User> create(@RequestBody CreateUser req) {
@@ -35,7 +50,7 @@ public class UserAdminController {
         }
         User u = new User();
         u.setUsername(req.getUsername());
-        u.setPassword(encoder.encode(req.getPassword()));
+        u.setPassword(passwordHashing.encode(req.getPassword()));
         u.setRole(req.getRole());
         return ResponseEntity.status(HttpStatus.CREATED).body(userRepository.save(u));
     }
@@ -45,8 +60,13 @@ public class UserAdminController {
         return userRepository.findById(req.getId())
                 .map(u -> {
                     if (req.getUsername() != null) u.setUsername(req.getUsername());
-                    if (req.getPassword() != null) u.setPassword(encoder.encode(req.getPassword()));
+                    if (req.getPassword() != null) u.setPassword(passwordHashing.encode(req.getPassword()));
                     if (req.getRole() != null) u.setRole(req.getRole());
+                    if (req.getUsername() != null || req.getPassword() != null || req.getRole() != null) {
+                        // tokens carry username and role, so the ones issued before the change must stop working
+                        u.setTokenVersion(u.getTokenVersion() + 1);
+                        revocationCache.revokeBelow(u.getId(), u.getTokenVersion());
+                    }
                     return ResponseEntity.ok(userRepository.save(u));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -54,18 +74,37 @@ public class UserAdminController {
 
     @DeleteMapping
     public ResponseEntity<Void> delete(@RequestBody DeleteUser req) {
-        if (!userRepository.existsById(req.getId())) {
+        if (userService.deleteAll(List.of(req.getId())).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        // Delete user's bookings first (foreign key constraint)
-        bookingRepository.findAll().stream()
-                .filter(b -> b.getUser().getId().equals(req.getId()))
-                .forEach(b -> bookingRepository.deleteById(b.getId()));
-        
-        userRepository.deleteById(req.getId());
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Small requests are executed right away; larger ones are queued and answered with 202 and the job location.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<UserBulkJob> bulk(@Valid @RequestBody BulkUserRequest req) {
+        UserBulkService.Command command = new UserBulkService.Command(
+                req.getCreate() == null ? null : req.getCreate().stream()
+                        .map(n -> new UserBulkService.NewUser(n.getUsername(), n.getPassword(), n.getRole()))
+                        .toList(),
+                req.getDisable(),
+                req.getDelete());
+        if (command.size() <= syncMaxItems) {
+            return ResponseEntity.ok(userBulkService.run(command));
+        }
+        UserBulkJob job = userBulkService.submit(command);
+        return ResponseEntity.accepted().location(URI.create("/api/user/bulk/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<UserBulkJob> bulkStatus(@PathVariable String jobId) {
+        return userBulkService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Data
     public static class CreateUser {
         @NotBlank
@@ -1,9 +1,15 @@
 package com.mephi.task.booking.web.dto;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 public class BookingDtos {
     @Data
@@ -14,10 +20,54 @@ public class BookingDtos {
         @NotNull
         private LocalDate endDate;
         private boolean autoSelect;
-        // client-provided for idempotency of create
+        // return 202 right after the PENDING booking is stored and confirm in the background
+        private boolean async;
+        // client-provided for idempotency of create; the "grp:" prefix is reserved for group members
         @NotNull
+        @Pattern(regexp = "^(?!grp:).*", message = "must not start with grp:")
         private String requestId;
     }
-}
 
+    @Data
+    public static class ChangeDatesRequest {
+        @NotNull
+        private LocalDate startDate;
+        @NotNull
+        private LocalDate endDate;
+    }
 
+    @Data
+    public static class CreateGroupBookingRequest {
+        @NotEmpty
+        @Size(max = 20)
+        private List<@NotNull Long> roomIds;
+        @NotNull
+        private LocalDate startDate;
+        @NotNull
+        private LocalDate endDate;
+        // idempotency key of the whole group; room bookings get "grp:<requestId>:<n>", at most 64 characters
+        @NotNull
+        @Size(max = 57)
+        private String requestId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GroupBookingResponse {
+        private String groupId;
+        private boolean confirmed;
+        private List<RoomOutcome> rooms;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RoomOutcome {
+        private Long roomId;
+        private Long bookingId;
+        private String status;
+        // hotel-service outcome: HELD, AVAILABLE, CONFLICT, NOT_FOUND; null if hotel-service did not answer
+        private String outcome;
+    }
+}
@@ -0,0 +1,18 @@
+package com.mephi.task.booking.web.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    // pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+    // only filled when requested with withTotal=true
+    private Long total;
+}
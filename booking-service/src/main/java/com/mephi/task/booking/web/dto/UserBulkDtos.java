@@ -0,0 +1,27 @@
+package com.mephi.task.booking.web.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+public class UserBulkDtos {
+    @Data
+    public static class BulkUserRequest {
+        private List<@Valid NewUser> create;
+        private List<@NotNull Long> disable;
+        private List<@NotNull Long> delete;
+    }
+
+    @Data
+    public static class NewUser {
+        @NotBlank
+        private String username;
+        @NotBlank
+        private String password;
+        @NotBlank
+        private String role;
+    }
+}
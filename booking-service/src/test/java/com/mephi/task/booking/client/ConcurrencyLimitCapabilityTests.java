@@ -0,0 +1,78 @@
+package com.mephi.task.booking.client;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitCapabilityTests {
+
+    private final Request request = Request.create(Request.HttpMethod.GET, "http://hotel-service/api/rooms", Map.of(),
+            null, StandardCharsets.UTF_8, null);
+
+    @Test
+    @DisplayName("При исчерпании лимита вызов сразу отклоняется, а не ставится в очередь")
+    void call_over_limit_fails_fast() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitCapability capability = new ConcurrencyLimitCapability(registry,
+                new ConcurrencyLimitCapability.Settings(1, 1, 10, Duration.ofMillis(500), 0.9));
+        AtomicReference<Client> limited = new AtomicReference<>();
+        AtomicReference<Exception> nested = new AtomicReference<>();
+        Client delegate = (req, options) -> {
+            // the only permit is taken by this call, so a concurrent one must be rejected
+            try {
+                limited.get().execute(req, options);
+            } catch (Exception ex) {
+                nested.set(ex);
+            }
+            return ok(req);
+        };
+        limited.set(capability.enrich(delegate));
+
+        Response response = limited.get().execute(request, new Request.Options());
+
+        assertThat(response.status()).isEqualTo(200);
+        assertThat(nested.get()).isInstanceOf(HotelOverloadedException.class);
+        assertThat(registry.get("hotel.client.rejected").counter().count()).isEqualTo(1);
+        assertThat(registry.get("hotel.client.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("AIMD: лимит растёт на быстрых ответах под нагрузкой и уменьшается на медленных и ошибках")
+    void limit_adapts_to_latency_and_errors() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 100, Duration.ofMillis(100).toNanos(), 0.5);
+
+        for (int i = 0; i < 40; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                assertThat(limiter.tryAcquire()).isTrue();
+            }
+            assertThat(limiter.tryAcquire()).isFalse();
+            int acquired = limiter.getInFlight();
+            for (int j = 0; j < acquired; j++) {
+                limiter.onSuccess(Duration.ofMillis(10).toNanos());
+            }
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(4);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onSuccess(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire()).isTrue();
+        limiter.onDropped();
+        assertThat(limiter.getLimit()).isLessThan(grown);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private static Response ok(Request request) {
+        return Response.builder().status(200).request(request).headers(Map.of()).build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.mephi.task.booking.client;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Flux;
+
+class LeastOutstandingRequestsLoadBalancerTests {
+
+    private final ServiceInstance first = new DefaultServiceInstance("h1", "hotel-service", "10.0.0.1", 8082, false);
+    private final ServiceInstance second = new DefaultServiceInstance("h2", "hotel-service", "10.0.0.2", 8082, false);
+
+    @Test
+    @DisplayName("Запрос уходит на экземпляр с наименьшим числом незавершённых запросов")
+    @SuppressWarnings("unchecked")
+    void picks_instance_with_fewest_outstanding_requests() {
+        ServiceInstanceListSupplier supplier = Mockito.mock(ServiceInstanceListSupplier.class);
+        Mockito.when(supplier.get(Mockito.any())).thenReturn(Flux.just(List.of(first, second)));
+        ObjectProvider<ServiceInstanceListSupplier> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(supplier);
+        LeastOutstandingRequestsLoadBalancer lb = new LeastOutstandingRequestsLoadBalancer(provider);
+
+        // two calls in flight on the first instance
+        lb.onStartRequest(new DefaultRequest<>(), new DefaultResponse(first));
+        lb.onStartRequest(new DefaultRequest<>(), new DefaultResponse(first));
+        for (int i = 0; i < 10; i++) {
+            assertThat(lb.choose(new DefaultRequest<>()).block().getServer()).isEqualTo(second);
+        }
+
+        Response<ServiceInstance> finished = new DefaultResponse(first);
+        lb.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, new DefaultRequest<>(), finished));
+        lb.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, new DefaultRequest<>(), finished));
+        assertThat(lb.outstanding(first)).isZero();
+    }
+}
@@ -0,0 +1,67 @@
+package com.mephi.task.booking.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mephi.task.booking.security.JwtService;
+import com.mephi.task.booking.security.ServiceTokenProvider;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+class FeignConfigTests {
+
+    private JwtService jwtService;
+    private RequestInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "test-secret-please-change-32B-min-1234");
+        jwtService.init();
+        ServiceTokenProvider serviceToken = new ServiceTokenProvider(jwtService);
+        ReflectionTestUtils.setField(serviceToken, "serviceName", "booking-service");
+        ReflectionTestUtils.setField(serviceToken, "ttlSeconds", 300L);
+        interceptor = new FeignConfig().authForwardingInterceptor(serviceToken);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Токен пользователя пересылается на публичные эндпоинты, на /internal уходит токен сервиса")
+    void internal_endpoints_get_the_service_token() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "alice", "user-token", AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        assertThat(authorization("/api/rooms/1/confirm-availability")).isEqualTo("Bearer user-token");
+        assertThat(role(authorization("/internal/rooms/1/modify-hold"))).isEqualTo("SERVICE");
+    }
+
+    @Test
+    @DisplayName("Вызовы вне пользовательского запроса идут с токеном сервиса")
+    void background_calls_get_the_service_token() {
+        assertThat(role(authorization("/api/rooms/1/confirm-availability"))).isEqualTo("SERVICE");
+        assertThat(role(authorization("/internal/rooms/holds"))).isEqualTo("SERVICE");
+    }
+
+    private String authorization(String path) {
+        RequestTemplate template = new RequestTemplate().uri(path);
+        interceptor.apply(template);
+        return template.headers().get(HttpHeaders.AUTHORIZATION).iterator().next();
+    }
+
+    private String role(String authorization) {
+        return jwtService.parseClaims(authorization.substring(7)).get("role", String.class);
+    }
+}
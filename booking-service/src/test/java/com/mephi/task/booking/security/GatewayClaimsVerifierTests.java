@@ -0,0 +1,50 @@
+package com.mephi.task.booking.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class GatewayClaimsVerifierTests {
+
+    /**
+     * Same secret and signature as ClaimsSignerTests in api-gateway: the headers api-gateway produces for these
+     * claims must be accepted here.
+     */
+    private static final String SECRET = "test-gateway-secret-at-least-32-bytes!";
+    private static final String SIGNATURE = "Ob_ONPXEK_kENZ3W4mMwxbXRV4-nKyw12cuvDoE9ySQ";
+
+    @Test
+    @DisplayName("Заголовки, подписанные api-gateway, принимаются; изменённые после подписи отклоняются")
+    void headers_signed_by_the_gateway_are_accepted() {
+        GatewayClaimsVerifier verifier = new GatewayClaimsVerifier(true, SECRET);
+
+        VerifiedTokenCache.VerifiedToken verified = verifier.verify(signedRequest("USER")).orElseThrow();
+        assertThat(verified.principal()).isEqualTo(new AuthenticatedUser(7L, "alice smith", "USER"));
+        assertThat(verified.version()).isEqualTo(2);
+        assertThat(verified.authorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+
+        assertThat(verifier.verify(signedRequest("ADMIN"))).isEmpty();
+        assertThat(new GatewayClaimsVerifier(false, "").verify(signedRequest("USER"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Доверенный режим без секрета или с коротким секретом не даёт приложению запуститься")
+    void trust_mode_requires_a_long_enough_secret() {
+        assertThatThrownBy(() -> new GatewayClaimsVerifier(true, "")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new GatewayClaimsVerifier(true, "too-short-secret"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static MockHttpServletRequest signedRequest(String role) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings");
+        request.addHeader(GatewayClaimsVerifier.SUBJECT, "alice+smith");
+        request.addHeader(GatewayClaimsVerifier.ROLE, role);
+        request.addHeader(GatewayClaimsVerifier.USER_ID, "7");
+        request.addHeader(GatewayClaimsVerifier.VERSION, "2");
+        request.addHeader(GatewayClaimsVerifier.EXPIRES, "4102444800000");
+        request.addHeader(GatewayClaimsVerifier.SIGNATURE, SIGNATURE);
+        return request;
+    }
+}
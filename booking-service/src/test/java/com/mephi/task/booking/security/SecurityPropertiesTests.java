@@ -0,0 +1,45 @@
+package com.mephi.task.booking.security;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+
+class SecurityPropertiesTests {
+
+    /**
+     * Keys read with {@code @Value}; a key nested under the wrong parent would be silently replaced by the default.
+     */
+    private static final Set<String> KNOWN_KEYS = Set.of(
+            "security.jwt.secret",
+            "security.jwt.ttl-seconds",
+            "security.jwt.cache.max-size",
+            "security.jwt.revocation-cleanup-ms",
+            "security.jwt.service-ttl-seconds",
+            "security.gateway.trust-claims",
+            "security.gateway.secret",
+            "security.password.bcrypt-strength",
+            "security.password.pool-size",
+            "security.password.queue-capacity",
+            "security.password.timeout-ms");
+
+    @Test
+    @DisplayName("Все настройки security в application.yml читаются кодом и вложены под правильный раздел")
+    void security_keys_are_nested_where_they_are_read() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+
+        Set<String> securityKeys = properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith("security."))
+                .collect(Collectors.toSet());
+
+        assertThat(KNOWN_KEYS).containsAll(securityKeys);
+        assertThat(properties.getProperty("security.jwt.revocation-cleanup-ms")).isEqualTo("60000");
+    }
+}
@@ -0,0 +1,71 @@
+package com.mephi.task.booking.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VerifiedTokenCacheTests {
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry registry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "test-secret-please-change-32B-min-1234");
+        jwtService.init();
+        registry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(jwtService, registry);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    @Test
+    @DisplayName("Повторная проверка того же токена берётся из кэша, подпись проверяется один раз")
+    void repeated_token_is_served_from_cache() {
+        String token = jwtService.generateToken(7L, "alice", "ADMIN", 3, 3600);
+
+        VerifiedTokenCache.VerifiedToken first = cache.verify(token);
+        VerifiedTokenCache.VerifiedToken second = cache.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.principal()).isEqualTo(new AuthenticatedUser(7L, "alice", "ADMIN"));
+        assertThat(first.version()).isEqualTo(3);
+        assertThat(first.authorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(result("hit")).isEqualTo(1);
+        assertThat(result("miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Просроченный и подделанный токены отклоняются и не попадают в кэш")
+    void expired_and_tampered_tokens_are_rejected() {
+        String expired = jwtService.generateToken(1L, "bob", "USER", 0, -1);
+        String valid = jwtService.generateToken(1L, "bob", "USER", 0, 3600);
+        String tampered = valid.substring(0, valid.length() - 2) + (valid.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> cache.verify(expired)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> cache.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThat(registry.get("security.jwt.cache.size").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Размер кэша ограничен настройкой max-size")
+    void cache_size_is_bounded() {
+        for (int i = 0; i < 5; i++) {
+            cache.verify(jwtService.generateToken((long) i, "user" + i, "USER", 0, 3600));
+        }
+
+        assertThat(registry.get("security.jwt.cache.size").gauge().value()).isLessThanOrEqualTo(2);
+    }
+
+    private double result(String result) {
+        return registry.get("security.jwt.cache").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,72 @@
+package com.mephi.task.booking.service;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHashingServiceTests {
+
+    private ThreadPoolTaskExecutor executor;
+    private SimpleMeterRegistry registry;
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        registry = new SimpleMeterRegistry();
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), executor, registry);
+        ReflectionTestUtils.setField(service, "timeoutMs", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Хэширование выполняется в отдельном пуле, время каждой операции учитывается")
+    void encode_and_matches_are_timed() {
+        String hash = service.encode("secret");
+
+        assertThat(service.matches("secret", hash)).isTrue();
+        assertThat(registry.get("security.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("security.password.hash").tag("operation", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Переполненный пул сразу отклоняет запрос вместо ожидания")
+    void saturated_executor_rejects_fast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        // one task occupies the only worker, the other fills the queue
+        executor.execute(blocker);
+        executor.execute(blocker);
+
+        try {
+            assertThatThrownBy(() -> service.encode("secret")).isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(registry.get("security.password.hash.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+}
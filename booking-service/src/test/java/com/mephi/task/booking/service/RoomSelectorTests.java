@@ -0,0 +1,62 @@
+package com.mephi.task.booking.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.RoomDto;
+
+class RoomSelectorTests {
+
+    private static final LocalDate START = LocalDate.now().plusDays(1);
+
+    private HotelClient hotelClient;
+    private RoomSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        hotelClient = Mockito.mock(HotelClient.class);
+        Mockito.when(hotelClient.recommend(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(LongStream.rangeClosed(1, 6).mapToObj(RoomSelectorTests::room).toList());
+        selector = new RoomSelector(hotelClient);
+        ReflectionTestUtils.setField(selector, "spread", 3);
+        ReflectionTestUtils.setField(selector, "maxAttempts", 3);
+    }
+
+    @Test
+    @DisplayName("Запросы начинают с разных комнат из первых spread, повтор того же requestId начинает с той же")
+    void requests_are_spread_over_the_top_rooms() {
+        List<Long> first = selector.candidates(START, START.plusDays(1), "req-1");
+
+        assertThat(first).hasSize(3).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(selector.candidates(START, START.plusDays(1), "req-1")).isEqualTo(first);
+        assertThat(LongStream.range(0, 50)
+                .mapToObj(i -> selector.candidates(START, START.plusDays(1), "req-" + i).get(0))
+                .distinct()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("spread=0 не ломает автовыбор: комнаты берутся в порядке рекомендаций")
+    void non_positive_spread_keeps_the_ranked_order() {
+        for (int spread : new int[] {0, -1}) {
+            ReflectionTestUtils.setField(selector, "spread", spread);
+
+            assertThat(selector.candidates(START, START.plusDays(1), "req-1")).containsExactly(1L, 2L, 3L);
+        }
+    }
+
+    private static RoomDto room(long id) {
+        RoomDto room = new RoomDto();
+        room.setId(id);
+        return room;
+    }
+}
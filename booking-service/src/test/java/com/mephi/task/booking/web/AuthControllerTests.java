@@ -19,6 +19,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.monitoring.QueryCounter;
 import com.mephi.task.booking.repo.UserRepository;
 
 /**
@@ -58,6 +59,7 @@ class AuthControllerTests {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.token").value(notNullValue()))
                 .andExpect(jsonPath("$.token").isString());
+        QueryCounter.assertQueries(2);
     }
 
     @Test
@@ -93,6 +95,7 @@ class AuthControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").value(notNullValue()))
                 .andExpect(jsonPath("$.token").isString());
+        QueryCounter.assertQueries(1);
     }
 
     @Test
@@ -143,5 +146,27 @@ class AuthControllerTests {
         User saved = userRepository.findByUsername("roletest").orElseThrow();
         assert saved.getRole().equals("USER");
     }
-}
 
+    @Test
+    @DisplayName("Хэш с устаревшей стоимостью BCrypt пересчитывается при успешном входе")
+    void login_rehashesPasswordWithOutdatedCost() throws Exception {
+        User user = new User();
+        user.setUsername("legacy");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("legacypass"));
+        user.setRole("USER");
+        userRepository.save(user);
+
+        Map<String, String> request = new HashMap<>();
+        request.put("username", "legacy");
+        request.put("password", "legacypass");
+
+        mockMvc.perform(post("/api/user/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        String rehashed = userRepository.findByUsername("legacy").orElseThrow().getPassword();
+        org.assertj.core.api.Assertions.assertThat(rehashed).startsWith("$2a$10$");
+        org.assertj.core.api.Assertions.assertThat(encoder.matches("legacypass", rehashed)).isTrue();
+    }
+}
@@ -3,8 +3,12 @@ package com.mephi.task.booking.web;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mephi.task.booking.client.HotelClient;
 import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.monitoring.QueryCounter;
+import com.mephi.task.booking.monitoring.TraceContext;
 import com.mephi.task.booking.repo.UserRepository;
 import com.mephi.task.booking.security.JwtService;
+import com.mephi.task.booking.security.TokenRevocationCache;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -44,18 +48,48 @@ class BookingControllerTests {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    TokenRevocationCache revocationCache;
+
+    @Autowired
+    com.mephi.task.booking.repo.ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    com.mephi.task.booking.service.BookingArchiver bookingArchiver;
+
+    @Autowired
+    com.mephi.task.booking.service.BookingService bookingService;
+
+    @Autowired
+    com.mephi.task.booking.repo.PublishedBookingEventRepository publishedEventRepository;
+
+    @Autowired
+    com.mephi.task.booking.service.BookingEventStream bookingEventStream;
+
+    @Autowired
+    feign.RequestInterceptor traceForwardingInterceptor;
+
+    @org.springframework.beans.factory.annotation.Value("${security.gateway.secret}")
+    String gatewaySecret;
+
     private String userToken;
 
     @BeforeEach
     void setUp() {
+        // контекст общий с тестами саги, где hotel-service падает: не даём открытому circuit breaker влиять на эти тесты
+        circuitBreakerRegistry.circuitBreaker("hotel-confirm").reset();
         bookingRepository.deleteAll();
+        archivedBookingRepository.deleteAll();
         userRepository.deleteAll();
         User u = new User();
         u.setUsername("test");
         u.setPassword(new BCryptPasswordEncoder().encode("pass"));
         u.setRole("USER");
         userRepository.save(u);
-        userToken = jwtService.generateToken(u.getUsername(), u.getRole(), 3600);
+        userToken = jwtService.generateToken(u.getId(), u.getUsername(), u.getRole(), u.getTokenVersion(), 3600);
     }
 
     @Test
@@ -97,6 +131,80 @@ class BookingControllerTests {
                         .header("Authorization", "Bearer " + userToken)
                         .content(objectMapper.writeValueAsString(body)))
                 .andExpect(status().isOk());
+        // включая поиск requestId в архиве для идемпотентности и запись события CONFIRMED в booking_events
+        QueryCounter.assertQueries(11);
+    }
+
+    @Test
+    @DisplayName("Асинхронное создание: 202 Accepted сразу, итоговый статус CONFIRMED доступен через GET /api/booking/{id}")
+    void create_booking_async_returns_accepted_and_confirms_in_background() throws Exception {
+        Mockito.doNothing().when(hotelClient).confirmAvailability(Mockito.eq(1L), Mockito.any());
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("autoSelect", false);
+        body.put("async", true);
+        body.put("roomId", 1);
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(2).toString());
+        body.put("requestId", java.util.UUID.randomUUID().toString());
+
+        String resp = mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        long bookingId = objectMapper.readTree(resp).get("id").asLong();
+
+        String status = "PENDING";
+        for (int i = 0; i < 50 && "PENDING".equals(status); i++) {
+            Thread.sleep(100);
+            String current = mockMvc.perform(get("/api/booking/" + bookingId)
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = objectMapper.readTree(current).get("status").asText();
+        }
+        org.assertj.core.api.Assertions.assertThat(status).isEqualTo("CONFIRMED");
+    }
+
+    @Test
+    @DisplayName("GET /api/booking/{id}: бронирование ищется по (id, user) одним запросом, чужое бронирование возвращает 404")
+    void get_booking_is_owner_scoped() throws Exception {
+        Mockito.doNothing().when(hotelClient).confirmAvailability(Mockito.eq(1L), Mockito.any());
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("autoSelect", false);
+        body.put("roomId", 1);
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(2).toString());
+        body.put("requestId", java.util.UUID.randomUUID().toString());
+
+        String resp = mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long bookingId = objectMapper.readTree(resp).get("id").asLong();
+
+        mockMvc.perform(get("/api/booking/" + bookingId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(bookingId));
+        QueryCounter.assertQueries(1);
+
+        User other = new User();
+        other.setUsername("other");
+        other.setPassword("x");
+        other.setRole("USER");
+        userRepository.save(other);
+        String otherToken = jwtService.generateToken(other.getId(), other.getUsername(), other.getRole(), 0, 3600);
+
+        mockMvc.perform(get("/api/booking/" + bookingId)
+                        .header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -151,12 +259,540 @@ class BookingControllerTests {
         mockMvc.perform(get("/api/bookings?page=0&size=2")
                         .header("Authorization", "Bearer " + userToken))
                 .andExpect(status().isOk());
+        QueryCounter.assertQueries(2);
 
         // Проверяем pagination: page=1, size=2
         mockMvc.perform(get("/api/bookings?page=1&size=2")
                         .header("Authorization", "Bearer " + userToken))
                 .andExpect(status().isOk());
     }
-}
 
+    @Test
+    @DisplayName("Токен без uid (выпущен до появления claim) по-прежнему принимается, пользователь ищется по username")
+    void legacy_token_without_user_id_is_accepted() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        String legacyToken = jwtService.generateToken(u.getUsername(), u.getRole(), 3600);
+
+        mockMvc.perform(get("/api/bookings").header("Authorization", "Bearer " + legacyToken))
+                .andExpect(status().isOk());
+        QueryCounter.assertQueries(2);
+    }
+
+    @Test
+    @DisplayName("Отозванная версия токена отклоняется без обращения к БД")
+    void revoked_token_version_is_rejected() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        revocationCache.revokeBelow(u.getId(), u.getTokenVersion() + 1);
+
+        mockMvc.perform(get("/api/bookings").header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+        QueryCounter.assertQueries(0);
+
+        String fresh = jwtService.generateToken(u.getId(), u.getUsername(), u.getRole(), u.getTokenVersion() + 1, 3600);
+        mockMvc.perform(get("/api/bookings").header("Authorization", "Bearer " + fresh))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Групповое бронирование: все номера подтверждаются одним вызовом hotel-service")
+    void create_group_booking_confirms_all_rooms() throws Exception {
+        Mockito.when(hotelClient.confirmBatch(Mockito.any())).thenReturn(new com.mephi.task.booking.client.dto.BatchAvailabilityResponse());
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("roomIds", java.util.List.of(1, 2, 3));
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(3).toString());
+        body.put("requestId", "family-" + java.util.UUID.randomUUID());
+
+        mockMvc.perform(post("/api/booking/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmed").value(true))
+                .andExpect(jsonPath("$.rooms.length()").value(3))
+                .andExpect(jsonPath("$.rooms[*].status", org.hamcrest.Matchers.everyItem(org.hamcrest.Matchers.is("CONFIRMED"))));
+        Mockito.verify(hotelClient, Mockito.times(1)).confirmBatch(Mockito.any());
+        Mockito.verify(hotelClient, Mockito.never()).confirmAvailability(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Групповое бронирование: конфликт одного номера отменяет всю группу и возвращает исход по каждому номеру")
+    void create_group_booking_conflict_cancels_whole_group() throws Exception {
+        String groupId = "team-" + java.util.UUID.randomUUID();
+        String hotelBody = "{\"confirmed\":false,\"results\":["
+                + "{\"roomId\":1,\"requestId\":\"grp:" + groupId + ":1\",\"outcome\":\"AVAILABLE\"},"
+                + "{\"roomId\":2,\"requestId\":\"grp:" + groupId + ":2\",\"outcome\":\"CONFLICT\"}]}";
+        feign.Request request = feign.Request.create(feign.Request.HttpMethod.POST, "/internal/rooms/confirm-batch",
+                java.util.Map.of(), null, java.nio.charset.StandardCharsets.UTF_8, null);
+        Mockito.when(hotelClient.confirmBatch(Mockito.any())).thenThrow(new feign.FeignException.Conflict(
+                "conflict", request, hotelBody.getBytes(java.nio.charset.StandardCharsets.UTF_8), java.util.Map.of()));
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("roomIds", java.util.List.of(1, 2));
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(3).toString());
+        body.put("requestId", groupId);
+
+        mockMvc.perform(post("/api/booking/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.confirmed").value(false))
+                .andExpect(jsonPath("$.rooms[0].status").value("CANCELLED"))
+                .andExpect(jsonPath("$.rooms[0].outcome").value("AVAILABLE"))
+                .andExpect(jsonPath("$.rooms[1].status").value("CANCELLED"))
+                .andExpect(jsonPath("$.rooms[1].outcome").value("CONFLICT"));
+        org.assertj.core.api.Assertions.assertThat(bookingRepository.findByGroupIdOrderByIdAsc(groupId))
+                .extracting(b -> b.getStatus().name())
+                .containsExactly("CANCELLED", "CANCELLED");
+        // hotel-service откатил всю группу: освобождать нечего
+        Mockito.verify(hotelClient, Mockito.never()).release(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Групповое бронирование: requestId участников группы не пересекаются с requestId одиночных бронирований")
+    void group_member_request_ids_do_not_collide_with_single_bookings() throws Exception {
+        Mockito.when(hotelClient.confirmBatch(Mockito.any())).thenReturn(new com.mephi.task.booking.client.dto.BatchAvailabilityResponse());
+        String groupId = "X-" + java.util.UUID.randomUUID();
+
+        var group = new java.util.HashMap<String, Object>();
+        group.put("roomIds", java.util.List.of(1, 2));
+        group.put("startDate", LocalDate.now().plusDays(1).toString());
+        group.put("endDate", LocalDate.now().plusDays(3).toString());
+        group.put("requestId", groupId);
+        mockMvc.perform(post("/api/booking/group")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(group)))
+                .andExpect(status().isOk());
+
+        var single = new java.util.HashMap<String, Object>();
+        single.put("autoSelect", false);
+        single.put("roomId", 3);
+        single.put("startDate", LocalDate.now().plusDays(1).toString());
+        single.put("endDate", LocalDate.now().plusDays(2).toString());
+        single.put("requestId", groupId + "-1");
+        mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(single)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roomId").value(3));
+
+        single.put("requestId", "grp:" + groupId + ":1");
+        mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(single)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Автовыбор: при конфликте бронирование переносится на следующий рекомендованный номер")
+    void auto_select_moves_to_next_candidate_on_conflict() throws Exception {
+        java.util.List<com.mephi.task.booking.client.dto.RoomDto> rooms = new java.util.ArrayList<>();
+        for (long id = 10; id <= 12; id++) {
+            com.mephi.task.booking.client.dto.RoomDto room = new com.mephi.task.booking.client.dto.RoomDto();
+            room.setId(id);
+            rooms.add(room);
+        }
+        Mockito.when(hotelClient.recommend(Mockito.any(), Mockito.any())).thenReturn(rooms);
+        feign.Request request = feign.Request.create(feign.Request.HttpMethod.POST, "/api/rooms/confirm-availability",
+                java.util.Map.of(), null, java.nio.charset.StandardCharsets.UTF_8, null);
+        java.util.List<Long> attempted = new java.util.ArrayList<>();
+        Mockito.doAnswer(inv -> {
+            attempted.add(inv.getArgument(0));
+            if (attempted.size() == 1) {
+                throw new feign.FeignException.Conflict("taken", request, null, java.util.Map.of());
+            }
+            return null;
+        }).when(hotelClient).confirmAvailability(Mockito.anyLong(), Mockito.any());
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("autoSelect", true);
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(2).toString());
+        body.put("requestId", java.util.UUID.randomUUID().toString());
+
+        String resp = mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CONFIRMED"))
+                .andReturn().getResponse().getContentAsString();
+
+        org.assertj.core.api.Assertions.assertThat(attempted).hasSize(2).doesNotHaveDuplicates();
+        org.assertj.core.api.Assertions.assertThat(objectMapper.readTree(resp).get("roomId").asLong()).isEqualTo(attempted.get(1));
+    }
+
+    @Test
+    @DisplayName("Keyset-пагинация: страницы по курсору от новых к старым, один SQL-запрос на страницу без total")
+    void scroll_bookings_by_cursor() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        java.time.Instant base = java.time.Instant.parse("2025-01-01T10:00:00Z");
+        java.util.List<Long> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            com.mephi.task.booking.domain.Booking b = new com.mephi.task.booking.domain.Booking();
+            b.setUser(u);
+            b.setRoomId(1L);
+            b.setStartDate(LocalDate.now().plusDays(i + 1));
+            b.setEndDate(LocalDate.now().plusDays(i + 2));
+            b.setStatus(com.mephi.task.booking.domain.BookingStatus.CONFIRMED);
+            // two bookings share a timestamp: the id breaks the tie
+            b.setCreatedAt(base.plusSeconds(i == 4 ? 3 : i));
+            b.setRequestId(java.util.UUID.randomUUID().toString());
+            ids.add(bookingRepository.save(b).getId());
+        }
+
+        String first = mockMvc.perform(get("/api/bookings/scroll?size=2&withTotal=true")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andReturn().getResponse().getContentAsString();
+        QueryCounter.assertQueries(2);
+
+        java.util.List<Long> seen = new java.util.ArrayList<>();
+        String cursor = collect(first, seen);
+        while (cursor != null) {
+            String page = mockMvc.perform(get("/api/bookings/scroll?size=2&cursor=" + cursor)
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            QueryCounter.assertQueries(1);
+            cursor = collect(page, seen);
+        }
+
+        org.assertj.core.api.Assertions.assertThat(seen)
+                .containsExactly(ids.get(4), ids.get(3), ids.get(2), ids.get(1), ids.get(0));
+
+        mockMvc.perform(get("/api/bookings/scroll?cursor=not-a-cursor")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Архив: повтор создания с requestId заархивированного бронирования возвращает его, а не создаёт новое")
+    void retry_of_archived_booking_is_idempotent() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        String requestId = java.util.UUID.randomUUID().toString();
+        com.mephi.task.booking.domain.Booking b = new com.mephi.task.booking.domain.Booking();
+        b.setUser(u);
+        b.setRoomId(1L);
+        b.setStartDate(LocalDate.now().minusYears(1));
+        b.setEndDate(LocalDate.now().minusYears(1).plusDays(1));
+        b.setStatus(com.mephi.task.booking.domain.BookingStatus.CONFIRMED);
+        b.setCreatedAt(java.time.Instant.now().minus(java.time.Duration.ofDays(400)));
+        b.setRequestId(requestId);
+        Long id = bookingRepository.save(b).getId();
+        org.assertj.core.api.Assertions.assertThat(bookingArchiver.archive(LocalDate.now().minusDays(90))).isEqualTo(1);
+
+        var body = new java.util.HashMap<String, Object>();
+        body.put("autoSelect", false);
+        body.put("roomId", 1);
+        body.put("startDate", b.getStartDate().toString());
+        body.put("endDate", b.getEndDate().toString());
+        body.put("requestId", requestId);
+
+        mockMvc.perform(post("/api/booking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+        org.assertj.core.api.Assertions.assertThat(bookingRepository.count()).isZero();
+        Mockito.verify(hotelClient, Mockito.never()).confirmAvailability(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Архив: старые бронирования переносятся пачками и видны только с includeArchived=true")
+    void archived_bookings_are_returned_only_on_request() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        java.time.Instant base = java.time.Instant.parse("2025-01-01T10:00:00Z");
+        java.util.List<Long> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            com.mephi.task.booking.domain.Booking b = new com.mephi.task.booking.domain.Booking();
+            b.setUser(u);
+            b.setRoomId(1L);
+            // even bookings ended a year ago, odd ones are upcoming: hot and cold rows interleave by createdAt
+            LocalDate start = i % 2 == 0 ? LocalDate.now().minusYears(1) : LocalDate.now().plusDays(1);
+            b.setStartDate(start);
+            b.setEndDate(start.plusDays(1));
+            b.setStatus(i == 0 ? com.mephi.task.booking.domain.BookingStatus.CANCELLED
+                    : com.mephi.task.booking.domain.BookingStatus.CONFIRMED);
+            b.setCreatedAt(base.plusSeconds(i));
+            b.setRequestId(java.util.UUID.randomUUID().toString());
+            ids.add(bookingRepository.save(b).getId());
+        }
+
+        org.assertj.core.api.Assertions.assertThat(bookingArchiver.archive(LocalDate.now().minusDays(90))).isEqualTo(2);
+        org.assertj.core.api.Assertions.assertThat(bookingRepository.findAllById(ids))
+                .extracting(com.mephi.task.booking.domain.Booking::getId)
+                .containsExactlyInAnyOrder(ids.get(1), ids.get(3));
+
+        mockMvc.perform(get("/api/bookings/scroll?withTotal=true")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        java.util.List<Long> seen = new java.util.ArrayList<>();
+        String cursor = collect(mockMvc.perform(get("/api/bookings/scroll?size=3&includeArchived=true&withTotal=true")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andReturn().getResponse().getContentAsString(), seen);
+        while (cursor != null) {
+            cursor = collect(mockMvc.perform(get("/api/bookings/scroll?size=3&includeArchived=true&cursor=" + cursor)
+                            .header("Authorization", "Bearer " + userToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), seen);
+        }
+        org.assertj.core.api.Assertions.assertThat(seen)
+                .containsExactly(ids.get(3), ids.get(2), ids.get(1), ids.get(0));
+
+        mockMvc.perform(get("/api/booking/" + ids.get(0))
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/booking/" + ids.get(0) + "?includeArchived=true")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+
+    @Test
+    @DisplayName("SSE: смена статуса приходит в поток после коммита, пропущенные события отдаются по Last-Event-ID")
+    void booking_events_are_streamed_and_replayed() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        com.mephi.task.booking.domain.Booking b = new com.mephi.task.booking.domain.Booking();
+        b.setUser(u);
+        b.setRoomId(1L);
+        b.setStartDate(LocalDate.now().plusDays(1));
+        b.setEndDate(LocalDate.now().plusDays(2));
+        b.setStatus(com.mephi.task.booking.domain.BookingStatus.PENDING);
+        b.setCreatedAt(java.time.Instant.now());
+        b.setRequestId(java.util.UUID.randomUUID().toString());
+        Long bookingId = bookingRepository.save(b).getId();
+
+        org.springframework.test.web.servlet.MvcResult stream = mockMvc.perform(get("/api/bookings/events")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        bookingService.cancelAndCompensate(bookingId, "sse-test");
+
+        String content = "";
+        for (int i = 0; i < 100 && !content.contains("CANCELLED"); i++) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        org.assertj.core.api.Assertions.assertThat(content)
+                .contains("event:booking")
+                .contains("\"bookingId\":" + bookingId)
+                .contains("\"status\":\"CANCELLED\"");
+        long eventId = Long.parseLong(content.lines().filter(l -> l.startsWith("id:")).findFirst().orElseThrow().substring(3));
+
+        String replayed = mockMvc.perform(get("/api/bookings/events")
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Last-Event-ID", eventId - 1))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+        org.assertj.core.api.Assertions.assertThat(replayed).contains("id:" + eventId);
 
+        String upToDate = mockMvc.perform(get("/api/bookings/events")
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Last-Event-ID", eventId))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+        org.assertj.core.api.Assertions.assertThat(upToDate).doesNotContain("event:booking");
+    }
+
+    @Test
+    @DisplayName("SSE: событие, записанное другой репликой, доходит до потока этой реплики и отдаётся по Last-Event-ID")
+    void booking_events_from_another_replica_are_streamed_and_replayed() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        org.springframework.test.web.servlet.MvcResult stream = mockMvc.perform(get("/api/bookings/events")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // другая реплика пишет только в общую таблицу, в память этой реплики событие не попадает
+        com.mephi.task.booking.domain.PublishedBookingEvent event = new com.mephi.task.booking.domain.PublishedBookingEvent();
+        event.setUserId(u.getId());
+        event.setBookingId(777L);
+        event.setRoomId(1L);
+        event.setStatus(com.mephi.task.booking.domain.BookingStatus.CONFIRMED);
+        event.setCreatedAt(java.time.Instant.now());
+        Long eventId = publishedEventRepository.save(event).getId();
+
+        bookingEventStream.poll();
+        String content = "";
+        for (int i = 0; i < 100 && !content.contains("\"bookingId\":777"); i++) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        org.assertj.core.api.Assertions.assertThat(content)
+                .contains("id:" + eventId)
+                .contains("\"status\":\"CONFIRMED\"");
+
+        // следующий опрос не шлёт то же событие повторно
+        bookingEventStream.poll();
+        Thread.sleep(100);
+        org.assertj.core.api.Assertions.assertThat(stream.getResponse().getContentAsString().split("id:" + eventId, -1))
+                .hasSize(2);
+
+        String replayed = mockMvc.perform(get("/api/bookings/events")
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Last-Event-ID", eventId - 1))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+        org.assertj.core.api.Assertions.assertThat(replayed).contains("id:" + eventId).contains("\"bookingId\":777");
+    }
+
+    @Test
+    @DisplayName("PATCH: смена дат двигает холд в hotel-service на месте, при конфликте даты не меняются, прошедшие даты отклоняются")
+    void change_dates_moves_hold_in_place() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        LocalDate start = LocalDate.now().plusDays(5);
+        com.mephi.task.booking.domain.Booking b = new com.mephi.task.booking.domain.Booking();
+        b.setUser(u);
+        b.setRoomId(3L);
+        b.setStartDate(start);
+        b.setEndDate(start.plusDays(2));
+        b.setStatus(com.mephi.task.booking.domain.BookingStatus.CONFIRMED);
+        b.setCreatedAt(java.time.Instant.now());
+        b.setRequestId("change-dates");
+        Long id = bookingRepository.save(b).getId();
+
+        mockMvc.perform(patch("/api/booking/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of(
+                                "startDate", start.plusDays(1).toString(), "endDate", start.plusDays(4).toString()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.startDate").value(start.plusDays(1).toString()))
+                .andExpect(jsonPath("$.endDate").value(start.plusDays(4).toString()));
+        Mockito.verify(hotelClient).modifyHold(Mockito.eq(3L), Mockito.argThat(r -> "change-dates".equals(r.getRequestId())
+                && r.getStartDate().equals(start.plusDays(1)) && r.getEndDate().equals(start.plusDays(4))));
+        Mockito.verify(hotelClient, Mockito.never()).release(Mockito.any(), Mockito.any());
+
+        feign.Request request = feign.Request.create(feign.Request.HttpMethod.POST, "/internal/rooms/3/modify-hold",
+                java.util.Map.of(), null, java.nio.charset.StandardCharsets.UTF_8, null);
+        Mockito.doThrow(new feign.FeignException.Conflict("conflict", request, null, java.util.Map.of()))
+                .when(hotelClient).modifyHold(Mockito.eq(3L), Mockito.any());
+        mockMvc.perform(patch("/api/booking/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of(
+                                "startDate", start.plusDays(1).toString(), "endDate", start.plusDays(9).toString()))))
+                .andExpect(status().isConflict());
+        org.assertj.core.api.Assertions.assertThat(bookingRepository.findById(id).orElseThrow().getEndDate())
+                .isEqualTo(start.plusDays(4));
+
+        mockMvc.perform(patch("/api/booking/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of(
+                                "startDate", start.plusDays(4).toString(), "endDate", start.plusDays(1).toString()))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/booking/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + userToken)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of(
+                                "startDate", LocalDate.now().minusDays(1).toString(), "endDate", start.toString()))))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(hotelClient, Mockito.times(2)).modifyHold(Mockito.eq(3L), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Доверенный режим: подписанные gateway заголовки аутентифицируют без JWT, подделанные отклоняются")
+    void gateway_signed_claims_are_trusted() throws Exception {
+        User u = userRepository.findByUsername("test").orElseThrow();
+        String expires = String.valueOf(System.currentTimeMillis() + 60_000);
+        String[] claims = {"test", "USER", String.valueOf(u.getId()), String.valueOf(u.getTokenVersion()), expires};
+        String signature = gatewaySignature(String.join("\n", claims));
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("X-Auth-Subject", claims[0])
+                        .header("X-Auth-Role", claims[1])
+                        .header("X-Auth-User-Id", claims[2])
+                        .header("X-Auth-Version", claims[3])
+                        .header("X-Auth-Expires", claims[4])
+                        .header("X-Auth-Signature", signature))
+                .andExpect(status().isOk());
+
+        // роль подменена после подписи
+        mockMvc.perform(get("/api/admin/reconciliation")
+                        .header("X-Auth-Subject", claims[0])
+                        .header("X-Auth-Role", "ADMIN")
+                        .header("X-Auth-User-Id", claims[2])
+                        .header("X-Auth-Version", claims[3])
+                        .header("X-Auth-Expires", claims[4])
+                        .header("X-Auth-Signature", signature))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Trace id из traceparent попадает в MDC и продолжается в вызове hotel-service с новым span id")
+    void gateway_trace_is_continued_in_hotel_calls() throws Exception {
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        java.util.List<String> mdcTraceIds = new java.util.ArrayList<>();
+        java.util.List<feign.RequestTemplate> calls = new java.util.ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            mdcTraceIds.add(org.slf4j.MDC.get(TraceContext.MDC_TRACE_ID));
+            feign.RequestTemplate template = new feign.RequestTemplate();
+            traceForwardingInterceptor.apply(template);
+            calls.add(template);
+            return null;
+        }).when(hotelClient).confirmAvailability(Mockito.eq(1L), Mockito.any());
+
+        bookRoom1(TraceContext.TRACEPARENT_HEADER, "00-" + traceId + "-00f067aa0ba902b7-01");
+        // span id не из 16 hex-символов: traceparent отбрасывается, как и в gateway, берётся X-Trace-Id
+        bookRoom1(TraceContext.TRACEPARENT_HEADER, "00-" + traceId + "-xyz-01",
+                TraceContext.TRACE_ID_HEADER, "0af76519-16cd-43dd-8448-eb211c80319c");
+
+        org.assertj.core.api.Assertions.assertThat(mdcTraceIds)
+                .containsExactly(traceId, "0af7651916cd43dd8448eb211c80319c");
+        String child = calls.get(0).headers().get(TraceContext.TRACEPARENT_HEADER).iterator().next();
+        org.assertj.core.api.Assertions.assertThat(child)
+                .matches("00-" + traceId + "-[0-9a-f]{16}-01")
+                .doesNotContain("00f067aa0ba902b7");
+        org.assertj.core.api.Assertions.assertThat(calls.get(0).headers().get(TraceContext.TRACE_ID_HEADER))
+                .containsExactly(traceId);
+        org.assertj.core.api.Assertions.assertThat(org.slf4j.MDC.get(TraceContext.MDC_TRACE_ID)).isNull();
+    }
+
+    private void bookRoom1(String... headers) throws Exception {
+        var body = new java.util.HashMap<String, Object>();
+        body.put("autoSelect", false);
+        body.put("roomId", 1);
+        body.put("startDate", LocalDate.now().plusDays(1).toString());
+        body.put("endDate", LocalDate.now().plusDays(2).toString());
+        body.put("requestId", java.util.UUID.randomUUID().toString());
+        var request = post("/api/booking")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", "Bearer " + userToken)
+                .content(objectMapper.writeValueAsString(body));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        mockMvc.perform(request).andExpect(status().isOk());
+    }
+
+    private String gatewaySignature(String payload) throws Exception {
+        javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
+        mac.init(new javax.crypto.spec.SecretKeySpec(gatewaySecret.getBytes(java.nio.charset.StandardCharsets.UTF_8), "HmacSHA256"));
+        return java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+    }
+
+    private String collect(String page, java.util.List<Long> seen) throws Exception {
+        com.fasterxml.jackson.databind.JsonNode json = objectMapper.readTree(page);
+        json.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+        return json.get("nextCursor").isNull() ? null : json.get("nextCursor").asText();
+    }
+}
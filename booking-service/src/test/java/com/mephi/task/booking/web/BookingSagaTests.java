@@ -8,6 +8,9 @@ import com.mephi.task.booking.domain.User;
 import com.mephi.task.booking.repo.BookingRepository;
 import com.mephi.task.booking.repo.UserRepository;
 import com.mephi.task.booking.security.JwtService;
+import com.mephi.task.booking.service.BookingService;
+import com.mephi.task.booking.service.PendingBookingSweeper;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -49,10 +52,20 @@ class BookingSagaTests {
     @MockBean
     HotelClient hotelClient;
 
+    @Autowired
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    BookingService bookingService;
+
+    @Autowired
+    PendingBookingSweeper pendingSweeper;
+
     private String userToken;
 
     @BeforeEach
     void setup() {
+        circuitBreakerRegistry.circuitBreaker("hotel-confirm").reset();
         bookingRepository.deleteAll();
         userRepository.deleteAll();
         User u = new User();
@@ -117,9 +130,62 @@ class BookingSagaTests {
         assertThat(b.getStatus().name()).isEqualTo("CANCELLED");
         Mockito.verify(hotelClient, Mockito.atLeastOnce()).release(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
     }
-}
 
+    @Test
+    @DisplayName("Sweeper: зависшие PENDING подтверждаются по исходному requestId или отменяются с release")
+    void sweeper_confirms_or_cancels_stuck_pending_bookings() {
+        feign.Request request = feign.Request.create(feign.Request.HttpMethod.POST, "/api/rooms/2/confirm-availability",
+                java.util.Map.of(), null, java.nio.charset.StandardCharsets.UTF_8, null);
+        Mockito.doThrow(new feign.FeignException.Conflict("conflict", request, null, java.util.Map.of()))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(2L), ArgumentMatchers.any());
+        Long userId = userRepository.findByUsername("u1").orElseThrow().getId();
+        LocalDate start = LocalDate.now().plusDays(1);
+        Booking held = bookingService.createPending(userId, 1L, start, start.plusDays(1), "stuck-1");
+        Booking taken = bookingService.createPending(userId, 2L, start, start.plusDays(1), "stuck-2");
+
+        // nothing is older than the cutoff yet
+        assertThat(pendingSweeper.sweep(java.time.Instant.now().minusSeconds(60))).isZero();
+        assertThat(pendingSweeper.sweep(java.time.Instant.now().plusSeconds(1))).isEqualTo(2);
+
+        assertThat(bookingRepository.findById(held.getId()).orElseThrow().getStatus().name()).isEqualTo("CONFIRMED");
+        assertThat(bookingRepository.findById(taken.getId()).orElseThrow().getStatus().name()).isEqualTo("CANCELLED");
+        Mockito.verify(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L),
+                ArgumentMatchers.argThat(r -> "stuck-1".equals(r.getRequestId())));
+        Mockito.verify(hotelClient).release(2L, "stuck-2");
+    }
 
+    @Test
+    @DisplayName("Sweeper: ошибка 5xx или тайм-аут не отменяет бронирование, оно остаётся PENDING до следующего прохода")
+    void sweeper_defers_on_retryable_failures() {
+        feign.Request request = feign.Request.create(feign.Request.HttpMethod.POST, "/api/rooms/1/confirm-availability",
+                java.util.Map.of(), null, java.nio.charset.StandardCharsets.UTF_8, null);
+        Mockito.doThrow(new feign.FeignException.InternalServerError("boom", request, null, java.util.Map.of()))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+        Long userId = userRepository.findByUsername("u1").orElseThrow().getId();
+        LocalDate start = LocalDate.now().plusDays(1);
+        Booking stuck = bookingService.createPending(userId, 1L, start, start.plusDays(1), "stuck-5xx");
 
+        assertThat(pendingSweeper.sweep(java.time.Instant.now().plusSeconds(1))).isZero();
 
+        assertThat(bookingRepository.findById(stuck.getId()).orElseThrow().getStatus().name()).isEqualTo("PENDING");
+        Mockito.verify(hotelClient, Mockito.never()).release(ArgumentMatchers.any(), ArgumentMatchers.any());
+        // не оставляем CONFIRM в outbox для фонового relay, контекст общий с другими тестами
+        bookingService.cancelAndCompensate(stuck.getId(), "cleanup");
+    }
 
+    @Test
+    @DisplayName("Sweeper: бронирование, захваченное другой репликой, пропускается")
+    void sweeper_skips_bookings_leased_by_another_replica() {
+        Long userId = userRepository.findByUsername("u1").orElseThrow().getId();
+        LocalDate start = LocalDate.now().plusDays(1);
+        Booking stuck = bookingService.createPending(userId, 1L, start, start.plusDays(1), "stuck-leased");
+        java.time.Instant now = java.time.Instant.now();
+        assertThat(bookingRepository.claimForSweep(stuck.getId(), now, now.plusSeconds(60))).isEqualTo(1);
+
+        assertThat(pendingSweeper.sweep(now.plusSeconds(1))).isZero();
+
+        assertThat(bookingRepository.findById(stuck.getId()).orElseThrow().getStatus().name()).isEqualTo("PENDING");
+        Mockito.verify(hotelClient, Mockito.never()).confirmAvailability(ArgumentMatchers.any(), ArgumentMatchers.any());
+        bookingService.cancelAndCompensate(stuck.getId(), "cleanup");
+    }
+}
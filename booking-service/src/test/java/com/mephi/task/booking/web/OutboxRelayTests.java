@@ -0,0 +1,295 @@
+package com.mephi.task.booking.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.BatchAvailabilityResponse;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.domain.OutboxStatus;
+import com.mephi.task.booking.domain.OutboxType;
+import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.repo.OutboxMessageRepository;
+import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.service.BookingService;
+import com.mephi.task.booking.service.OutboxRelay;
+
+import feign.FeignException;
+import feign.Request;
+
+/**
+ * Тесты фонового relay outbox. Сообщения переносятся на час вперёд и доставляются вызовом {@code drain(now)}
+ * с явным временем, чтобы плановый relay общего контекста их не трогал.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OutboxRelayTests {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST, "/api/rooms/1/confirm-availability",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    @Autowired
+    OutboxRelay relay;
+
+    @Autowired
+    OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    BookingService bookingService;
+
+    @MockBean
+    HotelClient hotelClient;
+
+    @Value("${booking.outbox.max-attempts}")
+    int maxAttempts;
+
+    @Value("${booking.outbox.backoff-ms}")
+    long backoffMs;
+
+    private Long userId;
+    private Instant due;
+    private LocalDate start;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        bookingRepository.deleteAll();
+        userRepository.deleteAll();
+        User u = new User();
+        u.setUsername("relay");
+        u.setPassword(new BCryptPasswordEncoder().encode("p1"));
+        u.setRole("USER");
+        userId = userRepository.save(u).getId();
+        due = Instant.now().plus(Duration.ofHours(1)).truncatedTo(ChronoUnit.MILLIS);
+        start = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    @DisplayName("NEW сообщение доставляется только после nextAttemptAt, бронь становится CONFIRMED")
+    void message_is_dispatched_once_due() {
+        Booking b = bookingService.createPending(userId, 1L, start, start.plusDays(1), "relay-due");
+        OutboxMessage confirm = postpone(b.getId(), OutboxType.CONFIRM);
+
+        assertThat(relay.drain(due.minusMillis(1))).isZero();
+        Mockito.verifyNoInteractions(hotelClient);
+
+        assertThat(relay.drain(due)).isEqualTo(1);
+        Mockito.verify(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L),
+                ArgumentMatchers.argThat(r -> "relay-due".equals(r.getRequestId())));
+        assertThat(reload(confirm).getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(status(b)).isEqualTo(BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    @DisplayName("Ошибка 5xx увеличивает attempts и откладывает повтор с экспоненциальной задержкой, бронь остаётся PENDING")
+    void retryable_failure_backs_off_exponentially() {
+        Mockito.doThrow(new FeignException.InternalServerError("boom", REQUEST, null, Map.of()))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+        Booking b = bookingService.createPending(userId, 1L, start, start.plusDays(1), "relay-5xx");
+        OutboxMessage confirm = postpone(b.getId(), OutboxType.CONFIRM);
+
+        relay.drain(due);
+        OutboxMessage first = reload(confirm);
+        assertThat(first.getStatus()).isEqualTo(OutboxStatus.NEW);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLastError()).contains("boom");
+        assertThat(first.getNextAttemptAt()).isEqualTo(due.plusMillis(backoffMs));
+
+        // not due again before the backoff has passed
+        assertThat(relay.drain(first.getNextAttemptAt().minusMillis(1))).isZero();
+        relay.drain(first.getNextAttemptAt());
+        OutboxMessage second = reload(confirm);
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(second.getNextAttemptAt()).isEqualTo(first.getNextAttemptAt().plusMillis(2 * backoffMs));
+        assertThat(status(b)).isEqualTo(BookingStatus.PENDING);
+        Mockito.verify(hotelClient, Mockito.never()).release(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("После max-attempts сообщение FAILED, бронь отменяется и холд освобождается")
+    void exhausted_attempts_fail_the_message_and_release_the_hold() {
+        Mockito.doThrow(new FeignException.InternalServerError("boom", REQUEST, null, Map.of()))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+        Booking b = bookingService.createPending(userId, 1L, start, start.plusDays(1), "relay-exhausted");
+        OutboxMessage confirm = postpone(b.getId(), OutboxType.CONFIRM);
+
+        drainUntilDone(confirm);
+
+        OutboxMessage failed = reload(confirm);
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(maxAttempts);
+        assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+        // the hold may exist if an attempt's response was lost
+        assertThat(messages(b.getId(), OutboxType.RELEASE)).hasSize(1);
+        Mockito.verify(hotelClient).release(1L, "relay-exhausted");
+    }
+
+    @Test
+    @DisplayName("Конфликт 409 сразу переводит сообщение в FAILED и отменяет бронь без release")
+    void conflict_fails_without_release() {
+        Mockito.doThrow(new FeignException.Conflict("taken", REQUEST, null, Map.of()))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+        Booking b = bookingService.createPending(userId, 1L, start, start.plusDays(1), "relay-409");
+        OutboxMessage confirm = postpone(b.getId(), OutboxType.CONFIRM);
+
+        relay.drain(due);
+
+        OutboxMessage failed = reload(confirm);
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+        assertThat(messages(b.getId(), OutboxType.RELEASE)).isEmpty();
+        Mockito.verify(hotelClient, Mockito.never()).release(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Подтверждение, завершившееся после отмены брони, снова освобождает холд")
+    void confirm_completing_after_cancellation_releases_again() {
+        Booking b = bookingService.createPending(userId, 1L, start, start.plusDays(1), "relay-late");
+        postpone(b.getId(), OutboxType.CONFIRM);
+        // the user cancels while hotel-service is creating the hold
+        Mockito.doAnswer(invocation -> bookingService.cancelAndCompensate(b.getId(), "user"))
+                .when(hotelClient).confirmAvailability(ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+
+        relay.drain(due);
+
+        assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+        // one release from the cancellation, one for the hold created after it
+        assertThat(messages(b.getId(), OutboxType.RELEASE)).hasSize(2);
+        Mockito.verify(hotelClient, Mockito.times(2)).release(1L, "relay-late");
+    }
+
+    @Test
+    @DisplayName("Группа: доставка после nextAttemptAt подтверждает все брони одним вызовом")
+    void group_is_confirmed_once_due() {
+        Mockito.when(hotelClient.confirmBatch(ArgumentMatchers.any())).thenReturn(new BatchAvailabilityResponse());
+        List<Booking> group = bookingService.createPendingGroup(userId, List.of(1L, 2L), start, start.plusDays(1), "g-due");
+        OutboxMessage confirm = postpone(group.get(0).getId(), OutboxType.CONFIRM_GROUP);
+
+        assertThat(relay.drain(due.minusMillis(1))).isZero();
+        assertThat(relay.drain(due)).isEqualTo(1);
+
+        Mockito.verify(hotelClient).confirmBatch(ArgumentMatchers.argThat(r -> r.getItems().size() == 2));
+        assertThat(reload(confirm).getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(group).allSatisfy(b -> assertThat(status(b)).isEqualTo(BookingStatus.CONFIRMED));
+    }
+
+    @Test
+    @DisplayName("Группа: повторы с задержкой, после max-attempts все брони отменяются и каждый холд освобождается")
+    void group_exhausted_attempts_cancel_and_release_every_booking() {
+        Mockito.when(hotelClient.confirmBatch(ArgumentMatchers.any()))
+                .thenThrow(new FeignException.ServiceUnavailable("down", REQUEST, null, Map.of()));
+        List<Booking> group = bookingService.createPendingGroup(userId, List.of(1L, 2L), start, start.plusDays(1), "g-5xx");
+        OutboxMessage confirm = postpone(group.get(0).getId(), OutboxType.CONFIRM_GROUP);
+
+        relay.drain(due);
+        OutboxMessage first = reload(confirm);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getNextAttemptAt()).isEqualTo(due.plusMillis(backoffMs));
+        assertThat(group).allSatisfy(b -> assertThat(status(b)).isEqualTo(BookingStatus.PENDING));
+
+        drainUntilDone(confirm);
+
+        assertThat(reload(confirm).getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(reload(confirm).getAttempts()).isEqualTo(maxAttempts);
+        for (Booking b : group) {
+            assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+            assertThat(messages(b.getId(), OutboxType.RELEASE)).hasSize(1);
+            Mockito.verify(hotelClient).release(b.getRoomId(), b.getRequestId());
+        }
+    }
+
+    @Test
+    @DisplayName("Группа: конфликт 409 отменяет все брони без release")
+    void group_conflict_fails_without_release() {
+        Mockito.when(hotelClient.confirmBatch(ArgumentMatchers.any()))
+                .thenThrow(new FeignException.Conflict("taken", REQUEST, null, Map.of()));
+        List<Booking> group = bookingService.createPendingGroup(userId, List.of(1L, 2L), start, start.plusDays(1), "g-409");
+        OutboxMessage confirm = postpone(group.get(0).getId(), OutboxType.CONFIRM_GROUP);
+
+        relay.drain(due);
+
+        assertThat(reload(confirm).getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(group).allSatisfy(b -> {
+            assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+            assertThat(messages(b.getId(), OutboxType.RELEASE)).isEmpty();
+        });
+        Mockito.verify(hotelClient, Mockito.never()).release(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Группа: подтверждение, завершившееся после отмены группы, снова освобождает все холды")
+    void group_confirm_completing_after_cancellation_releases_again() {
+        List<Booking> group = bookingService.createPendingGroup(userId, List.of(1L, 2L), start, start.plusDays(1), "g-late");
+        postpone(group.get(0).getId(), OutboxType.CONFIRM_GROUP);
+        Mockito.when(hotelClient.confirmBatch(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            bookingService.cancelGroupAndCompensate("g-late");
+            return new BatchAvailabilityResponse();
+        });
+
+        relay.drain(due);
+
+        for (Booking b : group) {
+            assertThat(status(b)).isEqualTo(BookingStatus.CANCELLED);
+            assertThat(messages(b.getId(), OutboxType.RELEASE)).hasSize(2);
+            Mockito.verify(hotelClient, Mockito.times(2)).release(b.getRoomId(), b.getRequestId());
+        }
+    }
+
+    /**
+     * Moves the booking's message to {@link #due}, out of reach of the scheduled relay.
+     */
+    private OutboxMessage postpone(Long bookingId, OutboxType type) {
+        OutboxMessage m = messages(bookingId, type).get(0);
+        m.setNextAttemptAt(due);
+        return outboxRepository.save(m);
+    }
+
+    private void drainUntilDone(OutboxMessage message) {
+        for (int i = 0; i < maxAttempts && reload(message).getStatus() == OutboxStatus.NEW; i++) {
+            Instant next = reload(message).getNextAttemptAt();
+            assertThat(relay.drain(next)).isEqualTo(1);
+        }
+    }
+
+    private List<OutboxMessage> messages(Long bookingId, OutboxType type) {
+        return outboxRepository.findAll().stream()
+                .filter(m -> m.getBookingId().equals(bookingId) && m.getType() == type)
+                .toList();
+    }
+
+    private OutboxMessage reload(OutboxMessage m) {
+        return outboxRepository.findById(m.getId()).orElseThrow();
+    }
+
+    private BookingStatus status(Booking b) {
+        return bookingRepository.findById(b.getId()).orElseThrow().getStatus();
+    }
+}
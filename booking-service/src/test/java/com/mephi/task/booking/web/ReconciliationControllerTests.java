@@ -0,0 +1,184 @@
+package com.mephi.task.booking.web;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.booking.client.HotelClient;
+import com.mephi.task.booking.client.dto.HoldDto;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.OutboxMessage;
+import com.mephi.task.booking.domain.OutboxType;
+import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.repo.OutboxMessageRepository;
+import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.security.JwtService;
+import com.mephi.task.booking.service.ReconciliationService;
+
+/**
+ * MockMvc тесты для ReconciliationController
+ * Проверяют сверку бронирований с холдами hotel-service
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReconciliationControllerTests {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ReconciliationService reconciliationService;
+
+    @MockBean
+    HotelClient hotelClient;
+
+    private String adminToken;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        bookingRepository.deleteAll();
+        userRepository.deleteAll();
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword(new BCryptPasswordEncoder().encode("pass"));
+        admin.setRole("ADMIN");
+        userRepository.save(admin);
+        adminToken = jwtService.generateToken(admin.getId(), admin.getUsername(), admin.getRole(), admin.getTokenVersion(), 3600);
+        user = new User();
+        user.setUsername("guest");
+        user.setPassword(admin.getPassword());
+        user.setRole("USER");
+        userRepository.save(user);
+    }
+
+    @Test
+    @DisplayName("Сверка находит бронь без холда и лишние холды и ставит исправления в outbox")
+    void reconciliation_reports_and_repairs_discrepancies() throws Exception {
+        Booking ok = booking("r1", BookingStatus.CONFIRMED, 1L);
+        Booking missing = booking("r2", BookingStatus.CONFIRMED, 1L);
+        Booking cancelled = booking("r3", BookingStatus.CANCELLED, 2L);
+        booking("r5", BookingStatus.PENDING, 3L);
+        booking("r6", BookingStatus.CONFIRMED, 4L);
+        List<HoldDto> holds = List.of(hold(ok, 1L), hold(cancelled, 2L), hold("r4", 5L), hold("r6", 7L));
+        Mockito.when(hotelClient.holds(ArgumentMatchers.any(), ArgumentMatchers.anyString(), ArgumentMatchers.anyInt()))
+                .thenAnswer(inv -> holds.stream()
+                        .filter(h -> h.getRequestId().compareTo(inv.getArgument(1)) > 0)
+                        .sorted(Comparator.comparing(HoldDto::getRequestId))
+                        .limit(inv.<Integer>getArgument(2))
+                        .toList());
+        // pages of two rows exercise the keyset cursors on both sides
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 2);
+
+        String started = mockMvc.perform(post("/api/admin/reconciliation?repair=true")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(objectMapper.readTree(started).get("status").asText()).isEqualTo("RUNNING");
+
+        JsonNode report = null;
+        for (int i = 0; i < 100; i++) {
+            report = objectMapper.readTree(mockMvc.perform(get("/api/admin/reconciliation")
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            if (!"RUNNING".equals(report.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(report.get("status").asText()).isEqualTo("DONE");
+        assertThat(report.get("bookings").asLong()).isEqualTo(5);
+        assertThat(report.get("holds").asLong()).isEqualTo(4);
+        assertThat(report.get("missingHolds").asInt()).isEqualTo(1);
+        assertThat(report.get("orphanHolds").asInt()).isEqualTo(2);
+        assertThat(report.get("roomMismatches").asInt()).isEqualTo(1);
+        assertThat(report.get("repaired").asInt()).isEqualTo(3);
+
+        List<OutboxMessage> outbox = outboxRepository.findAll();
+        assertThat(outbox).anyMatch(m -> m.getType() == OutboxType.CONFIRM && m.getBookingId().equals(missing.getId()));
+        assertThat(outbox).anyMatch(m -> m.getType() == OutboxType.RELEASE && m.getBookingId().equals(cancelled.getId()));
+        Mockito.verify(hotelClient).release(5L, "r4");
+    }
+
+    @AfterEach
+    void restoreChunkSize() {
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 500);
+    }
+
+    @Test
+    @DisplayName("Сверка доступна только администратору")
+    void reconciliation_requires_admin() throws Exception {
+        String userToken = jwtService.generateToken(user.getId(), user.getUsername(), user.getRole(), user.getTokenVersion(), 3600);
+        mockMvc.perform(post("/api/admin/reconciliation")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private Booking booking(String requestId, BookingStatus status, Long roomId) {
+        Booking b = new Booking();
+        b.setUser(user);
+        b.setRoomId(roomId);
+        b.setStartDate(LocalDate.now().plusDays(1));
+        b.setEndDate(LocalDate.now().plusDays(2));
+        b.setStatus(status);
+        b.setCreatedAt(Instant.now());
+        b.setRequestId(requestId);
+        return bookingRepository.save(b);
+    }
+
+    private static HoldDto hold(Booking b, Long roomId) {
+        HoldDto h = hold(b.getRequestId(), roomId);
+        h.setBookingId(String.valueOf(b.getId()));
+        return h;
+    }
+
+    private static HoldDto hold(String requestId, Long roomId) {
+        HoldDto h = new HoldDto();
+        h.setRequestId(requestId);
+        h.setBookingId("0");
+        h.setRoomId(roomId);
+        h.setStartDate(LocalDate.now().plusDays(1));
+        h.setEndDate(LocalDate.now().plusDays(2));
+        return h;
+    }
+}
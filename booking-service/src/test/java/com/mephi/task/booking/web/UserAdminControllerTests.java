@@ -0,0 +1,189 @@
+package com.mephi.task.booking.web;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mephi.task.booking.domain.Booking;
+import com.mephi.task.booking.domain.BookingStatus;
+import com.mephi.task.booking.domain.User;
+import com.mephi.task.booking.monitoring.QueryCounter;
+import com.mephi.task.booking.repo.BookingRepository;
+import com.mephi.task.booking.repo.UserRepository;
+import com.mephi.task.booking.security.JwtService;
+
+/**
+ * MockMvc тесты для UserAdminController
+ * Проверяют удаление пользователей и массовые операции
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserAdminControllerTests {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    BookingRepository bookingRepository;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        userRepository.deleteAll();
+        User admin = save("admin", "ADMIN");
+        adminToken = jwtService.generateToken(admin.getId(), admin.getUsername(), admin.getRole(), admin.getTokenVersion(), 3600);
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя удаляет его бронирования фиксированным числом запросов")
+    void delete_user_removes_bookings_with_set_based_queries() throws Exception {
+        User u = save("victim", "USER");
+        User other = save("other", "USER");
+        for (int i = 0; i < 5; i++) {
+            booking(u);
+        }
+        Booking kept = booking(other);
+
+        mockMvc.perform(delete("/api/user")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("id", u.getId()))))
+                .andExpect(status().isNoContent());
+        // id lookup + bookings + archive + user, independent of the number of bookings
+        QueryCounter.assertQueries(4);
+
+        assertThat(userRepository.findById(u.getId())).isEmpty();
+        assertThat(bookingRepository.findAll()).extracting(Booking::getId).containsExactly(kept.getId());
+
+        mockMvc.perform(delete("/api/user")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("id", u.getId()))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Массовая операция: создание, отключение и удаление пользователей в одном запросе")
+    void bulk_create_disable_delete() throws Exception {
+        User toDisable = save("sleepy", "USER");
+        User toDelete = save("gone", "USER");
+        booking(toDelete);
+
+        Map<String, Object> body = Map.of(
+                "create", List.of(
+                        Map.of("username", "new1", "password", "p1", "role", "USER"),
+                        Map.of("username", "sleepy", "password", "p2", "role", "USER")),
+                "disable", List.of(toDisable.getId()),
+                "delete", List.of(toDelete.getId(), 999_999L));
+
+        mockMvc.perform(post("/api/user/bulk")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"))
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.processed").value(5))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.disabled").value(1))
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.errors.length()").value(2));
+
+        assertThat(userRepository.findByUsername("new1")).isPresent();
+        assertThat(userRepository.findById(toDisable.getId()).orElseThrow().isEnabled()).isFalse();
+        assertThat(userRepository.findById(toDelete.getId())).isEmpty();
+        assertThat(bookingRepository.count()).isZero();
+
+        mockMvc.perform(post("/api/user/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "sleepy", "password", "pass"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Большая массовая операция выполняется в фоне и отдаёт прогресс по ссылке")
+    void large_bulk_request_runs_as_job() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1_000_000, 1_000_059).boxed().toList();
+
+        String resp = mockMvc.perform(post("/api/user/bulk")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("delete", ids))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(resp).get("id").asText();
+
+        JsonNode job = null;
+        for (int i = 0; i < 100; i++) {
+            job = objectMapper.readTree(mockMvc.perform(get("/api/user/bulk/" + jobId)
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            if ("DONE".equals(job.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(job.get("status").asText()).isEqualTo("DONE");
+        assertThat(job.get("processed").asInt()).isEqualTo(60);
+        assertThat(job.get("deleted").asInt()).isZero();
+
+        mockMvc.perform(get("/api/user/bulk/unknown")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
+    private User save(String username, String role) {
+        User u = new User();
+        u.setUsername(username);
+        u.setPassword(new BCryptPasswordEncoder().encode("pass"));
+        u.setRole(role);
+        return userRepository.save(u);
+    }
+
+    private Booking booking(User u) {
+        Booking b = new Booking();
+        b.setUser(u);
+        b.setRoomId(1L);
+        b.setStartDate(LocalDate.now().plusDays(1));
+        b.setEndDate(LocalDate.now().plusDays(2));
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setCreatedAt(Instant.now());
+        b.setRequestId(UUID.randomUUID().toString());
+        return bookingRepository.save(b);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mephi.task.hotel.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mephi.task.hotel.monitoring.QueryCountInspector;
+
+@Configuration
+public class QueryCountConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
@@ -14,8 +14,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.mephi.task.hotel.security.GatewayClaimsVerifier;
 import com.mephi.task.hotel.security.JwtAuthFilter;
-import com.mephi.task.hotel.security.JwtService;
+import com.mephi.task.hotel.security.VerifiedTokenCache;
 
 @Configuration
 @EnableMethodSecurity
@@ -36,7 +37,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtService jwtService) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   VerifiedTokenCache tokenCache,
+                                                   GatewayClaimsVerifier gatewayClaims) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -47,10 +50,11 @@ public class SecurityConfig {
                         .requestMatchers("/v3/api-docs/**", "/v3/api-docs.yaml",
                                 "/swagger-ui/**", "/swagger-ui.html",
                                 "/swagger-resources/**", "/webjars/**").permitAll()
-                        // Health check
-                        .requestMatchers("/actuator/health").permitAll()
-                        // Allow inter-service calls to internal endpoints (no auth)
-                        .requestMatchers("/internal/**", "/api/rooms/internal/**").permitAll()
+                        // Health check and metrics scraping
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // holds and their changes: booking-service presents its SERVICE token here
+                        .requestMatchers("/internal/**").hasAnyRole("SERVICE", "ADMIN")
+                        .requestMatchers("/api/rooms/internal/**").permitAll()
                         // Admin only
                         .requestMatchers(HttpMethod.POST, "/api/hotels", "/api/rooms").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/hotels/**", "/api/rooms/**").hasRole("ADMIN")
@@ -62,7 +66,7 @@ public class SecurityConfig {
                 )
                 .cors(cors -> cors.configure(http))
                 .headers(headers -> headers.frameOptions().disable())
-                .addFilterBefore(new JwtAuthFilter(jwtService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(new JwtAuthFilter(tokenCache, gatewayClaims), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,38 @@
+package com.mephi.task.hotel.monitoring;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    @Value("${monitoring.query-budget.max-per-request:20}")
+    private long maxPerRequest;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // the count is left in place so that tests can assert on it after the request
+            long count = QueryCounter.count();
+            if (count > maxPerRequest) {
+                log.warn("query budget exceeded {} {} statements={} budget={}", request.getMethod(), request.getRequestURI(), count, maxPerRequest);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mephi.task.hotel.monitoring;
+
+import java.io.IOException;
+
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Puts the trace id of the request into the MDC for the duration of the request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String traceId = TraceContext.traceId(request.getHeader(TraceContext.TRACEPARENT_HEADER),
+                request.getHeader(TraceContext.TRACE_ID_HEADER));
+        MDC.put(TraceContext.MDC_TRACE_ID, traceId);
+        MDC.put(TraceContext.MDC_SPAN_ID, TraceContext.newSpanId());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(TraceContext.MDC_TRACE_ID);
+            MDC.remove(TraceContext.MDC_SPAN_ID);
+        }
+    }
+}
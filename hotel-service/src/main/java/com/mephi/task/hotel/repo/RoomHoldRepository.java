@@ -4,7 +4,10 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.mephi.task.hotel.domain.Room;
 import com.mephi.task.hotel.domain.RoomHold;
@@ -13,6 +16,10 @@ public interface RoomHoldRepository extends JpaRepository<RoomHold, Long> {
     List<RoomHold> findByRoomAndEndDateGreaterThanEqualAndStartDateLessThanEqual(Room room, LocalDate start, LocalDate end);
     Optional<RoomHold> findByRequestId(String requestId);
     long countByRoomAndEndDateGreaterThanEqualAndStartDateLessThanEqual(Room room, LocalDate start, LocalDate end);
+
+    // keyset page over the unique request_id index
+    @Query("SELECT h FROM RoomHold h WHERE h.endDate >= :from AND h.requestId > :after ORDER BY h.requestId")
+    List<RoomHold> findPageAfter(@Param("from") LocalDate from, @Param("after") String after, Pageable pageable);
 }
 
 
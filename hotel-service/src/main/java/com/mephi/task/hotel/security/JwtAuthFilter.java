@@ -1,19 +1,13 @@
 package com.mephi.task.hotel.security;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Optional;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,23 +15,23 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
+    private final VerifiedTokenCache tokenCache;
+    private final GatewayClaimsVerifier gatewayClaims;
 
-    public JwtAuthFilter(JwtService jwtService) {
-        this.jwtService = jwtService;
+    public JwtAuthFilter(VerifiedTokenCache tokenCache, GatewayClaimsVerifier gatewayClaims) {
+        this.tokenCache = tokenCache;
+        this.gatewayClaims = gatewayClaims;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (header != null && header.startsWith("Bearer ")) {
-            String token = header.substring(7);
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+        VerifiedTokenCache.VerifiedToken trusted = gatewayClaims.verify(request).orElse(null);
+        if (trusted != null || token != null) {
             try {
-                Claims claims = Jwts.parserBuilder().setSigningKey(jwtService.getKey()).build().parseClaimsJws(token).getBody();
-                String username = claims.getSubject();
-                String role = Optional.ofNullable(claims.get("role", String.class)).orElse("USER");
-                List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
-                Authentication auth = new UsernamePasswordAuthenticationToken(username, token, authorities);
+                VerifiedTokenCache.VerifiedToken verified = trusted != null ? trusted : tokenCache.verify(token);
+                Authentication auth = new UsernamePasswordAuthenticationToken(verified.username(), token, verified.authorities());
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } catch (Exception ignored) {
                 // leave unauthenticated
@@ -6,6 +6,9 @@ import java.util.Base64;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 
@@ -16,6 +19,8 @@ public class JwtService {
     private String secret;
 
     private Key key;
+    // immutable and thread-safe once built, so one instance serves all requests
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
@@ -30,6 +35,16 @@ public class JwtService {
         } else {
             this.key = Keys.secretKeyFor(io.jsonwebtoken.SignatureAlgorithm.HS256);
         }
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    /**
+     * Verifies the signature and expiry of the token.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public Key getKey() {
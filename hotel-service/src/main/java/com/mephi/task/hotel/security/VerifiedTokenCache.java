@@ -0,0 +1,104 @@
+package com.mephi.task.hotel.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by the SHA-256 of the token. hotel-service
+ * only authorizes by role, so an entry keeps just the subject and authorities; {@link GatewayClaimsVerifier} builds
+ * the same record from the gateway's signed headers. An entry is dropped once the token's {@code exp} has passed, so
+ * expiry is enforced exactly as by the parser.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${security.jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    public VerifiedTokenCache(JwtService jwtService, MeterRegistry registry) {
+        this.jwtService = jwtService;
+        this.hits = Counter.builder("security.jwt.cache").tag("result", "hit")
+                .description("Token verifications served from the cache").register(registry);
+        this.misses = Counter.builder("security.jwt.cache").tag("result", "miss")
+                .description("Token verifications that required signature check").register(registry);
+        Gauge.builder("security.jwt.cache.size", tokens, Map::size)
+                .description("Verified tokens currently cached").register(registry);
+    }
+
+    /**
+     * Returns the verified token, checking the signature only if it is not cached yet.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = tokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hits.increment();
+                return cached;
+            }
+            tokens.remove(key, cached);
+        }
+        misses.increment();
+        VerifiedToken verified = VerifiedToken.of(jwtService.parseClaims(token));
+        if (verified.expiresAt() != Long.MAX_VALUE) {
+            // tokens without exp are still accepted but never cached, so the map cannot fill up with them
+            put(key, verified, now);
+        }
+        return verified;
+    }
+
+    private void put(String key, VerifiedToken verified, long now) {
+        if (tokens.size() >= maxSize) {
+            tokens.values().removeIf(t -> t.expiresAt() <= now);
+            Iterator<String> it = tokens.keySet().iterator();
+            while (tokens.size() >= maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        tokens.put(key, verified);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAt) {
+
+        static VerifiedToken of(Claims claims) {
+            String role = Optional.ofNullable(claims.get("role", String.class)).orElse("USER");
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            return new VerifiedToken(claims.getSubject(), List.of(new SimpleGrantedAuthority("ROLE_" + role)), expiresAt);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mephi.task.hotel.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters for the confirm/modify/release hot path of {@link AvailabilityService}.
+ * Tags are limited to a fixed set of outcomes so that room and request ids never end up in metric labels.
+ */
+@Component
+public class AvailabilityMetrics {
+
+    private final Timer lockWait;
+    private final Timer overlapCheck;
+    private final Timer holdInsert;
+    private final Counter confirmSuccess;
+    private final Counter confirmConflict;
+    private final Counter confirmIdempotent;
+    private final Counter modifyMoved;
+    private final Counter modifyConflict;
+    private final Counter releaseReleased;
+    private final Counter releaseMissing;
+
+    public AvailabilityMetrics(MeterRegistry registry) {
+        this.lockWait = Timer.builder("hotel.availability.lock.wait")
+                .description("Time spent acquiring the pessimistic room lock")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.overlapCheck = Timer.builder("hotel.availability.overlap.check")
+                .description("Latency of the hold overlap query")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.holdInsert = Timer.builder("hotel.availability.hold.insert")
+                .description("Latency of inserting a room hold")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.confirmSuccess = confirmCounter(registry, "success");
+        this.confirmConflict = confirmCounter(registry, "conflict");
+        this.confirmIdempotent = confirmCounter(registry, "idempotent");
+        this.modifyMoved = modifyCounter(registry, "moved");
+        this.modifyConflict = modifyCounter(registry, "conflict");
+        this.releaseReleased = releaseCounter(registry, "released");
+        this.releaseMissing = releaseCounter(registry, "missing");
+    }
+
+    public <T> T timeLockWait(Supplier<T> action) {
+        return lockWait.record(action);
+    }
+
+    public <T> T timeOverlapCheck(Supplier<T> action) {
+        return overlapCheck.record(action);
+    }
+
+    public <T> T timeHoldInsert(Supplier<T> action) {
+        return holdInsert.record(action);
+    }
+
+    public void confirmSucceeded() {
+        confirmSuccess.increment();
+    }
+
+    public void confirmConflicted() {
+        confirmConflict.increment();
+    }
+
+    public void confirmIdempotentHit() {
+        confirmIdempotent.increment();
+    }
+
+    public void modifySucceeded() {
+        modifyMoved.increment();
+    }
+
+    public void modifyConflicted() {
+        modifyConflict.increment();
+    }
+
+    public void holdReleased() {
+        releaseReleased.increment();
+    }
+
+    public void releaseMissed() {
+        releaseMissing.increment();
+    }
+
+    private static Counter confirmCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("hotel.availability.confirmations")
+                .description("Availability confirmations by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter modifyCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("hotel.availability.modifications")
+                .description("Hold date changes by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter releaseCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("hotel.availability.releases")
+                .description("Hold releases by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -2,11 +2,15 @@ package com.mephi.task.hotel.service;
 
 import java.time.LocalDate;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import com.mephi.task.hotel.domain.Room;
 import com.mephi.task.hotel.domain.RoomHold;
@@ -21,6 +25,7 @@ public class AvailabilityService {
 
     private final RoomRepository roomRepository;
     private final RoomHoldRepository roomHoldRepository;
+    private final AvailabilityMetrics metrics;
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AvailabilityService.class);
 
     @Transactional(readOnly = true)
@@ -76,12 +81,14 @@ public class AvailabilityService {
         Optional<RoomHold> existing = roomHoldRepository.findByRequestId(requestId);
         if (existing.isPresent()) {
             log.info("confirmAvailability idempotent hit requestId={} bookingId={} roomId={}", requestId, bookingId, roomId);
+            metrics.confirmIdempotentHit();
             return true; // idempotent
         }
         // Pessimistic lock to avoid concurrent confirmation on the same room
-        Room room = Optional.ofNullable(roomRepository.findByIdForUpdate(roomId)).orElseThrow();
-        if (!room.isAvailable() || !isFree(room, start, end)) {
+        Room room = Optional.ofNullable(metrics.timeLockWait(() -> roomRepository.findByIdForUpdate(roomId))).orElseThrow();
+        if (!room.isAvailable() || !metrics.timeOverlapCheck(() -> isFree(room, start, end))) {
             log.warn("confirmAvailability conflict bookingId={} roomId={} start={} end={}", bookingId, roomId, start, end);
+            metrics.confirmConflicted();
             return false;
         }
         RoomHold hold = new RoomHold();
@@ -90,16 +97,107 @@ public class AvailabilityService {
         hold.setEndDate(end);
         hold.setRequestId(requestId);
         hold.setBookingId(bookingId);
-        roomHoldRepository.save(hold);
+        metrics.timeHoldInsert(() -> roomHoldRepository.save(hold));
         room.setTimesBooked(room.getTimesBooked() + 1);
         roomRepository.save(room);
         log.info("confirmAvailability success bookingId={} requestId={} holdCreated", bookingId, requestId);
+        metrics.confirmSucceeded();
         return true;
     }
 
+    /**
+     * Holds all requested rooms or none of them. Rooms are locked in id order, so concurrent batches sharing rooms
+     * cannot deadlock. Every item is checked even after a conflict, so that the caller learns all conflicting rooms.
+     *
+     * @return outcome per requestId, in request order; HELD for every item only if the whole batch was confirmed
+     */
+    @Transactional
+    public Map<String, HoldOutcome> confirmBatch(List<HoldRequest> requests) {
+        Map<String, HoldOutcome> outcomes = new LinkedHashMap<>();
+        requests.forEach(r -> outcomes.put(r.requestId(), null));
+        List<HoldRequest> ordered = requests.stream()
+                .sorted(Comparator.comparing(HoldRequest::roomId).thenComparing(HoldRequest::requestId))
+                .toList();
+        boolean conflict = false;
+        for (HoldRequest r : ordered) {
+            HoldOutcome outcome = hold(r);
+            outcomes.put(r.requestId(), outcome);
+            conflict |= outcome != HoldOutcome.HELD;
+        }
+        if (conflict) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            outcomes.replaceAll((requestId, outcome) -> outcome == HoldOutcome.HELD ? HoldOutcome.AVAILABLE : outcome);
+            log.warn("confirmBatch rolled back size={} outcomes={}", requests.size(), outcomes);
+        } else {
+            log.info("confirmBatch success size={}", requests.size());
+        }
+        return outcomes;
+    }
+
+    private HoldOutcome hold(HoldRequest r) {
+        if (roomHoldRepository.findByRequestId(r.requestId()).isPresent()) {
+            metrics.confirmIdempotentHit();
+            return HoldOutcome.HELD;
+        }
+        Room room = metrics.timeLockWait(() -> roomRepository.findByIdForUpdate(r.roomId()));
+        if (room == null) {
+            return HoldOutcome.NOT_FOUND;
+        }
+        if (!room.isAvailable() || !metrics.timeOverlapCheck(() -> isFree(room, r.start(), r.end()))) {
+            metrics.confirmConflicted();
+            return HoldOutcome.CONFLICT;
+        }
+        RoomHold hold = new RoomHold();
+        hold.setRoom(room);
+        hold.setStartDate(r.start());
+        hold.setEndDate(r.end());
+        hold.setRequestId(r.requestId());
+        hold.setBookingId(r.bookingId());
+        metrics.timeHoldInsert(() -> roomHoldRepository.save(hold));
+        room.setTimesBooked(room.getTimesBooked() + 1);
+        roomRepository.save(room);
+        metrics.confirmSucceeded();
+        return HoldOutcome.HELD;
+    }
+
+    /**
+     * Moves an existing hold to new dates under the room lock. Only the days the hold does not cover yet are checked
+     * for overlap; days it already covers are its own, and shrinking needs no check at all.
+     */
+    @Transactional
+    public HoldOutcome modifyHold(Long roomId, String requestId, LocalDate start, LocalDate end) {
+        // the lock serializes with confirmations of the same room, as in confirmAvailability
+        Room room = metrics.timeLockWait(() -> roomRepository.findByIdForUpdate(roomId));
+        Optional<RoomHold> existing = room == null ? Optional.empty() : roomHoldRepository.findByRequestId(requestId);
+        if (existing.isEmpty() || !existing.get().getRoom().getId().equals(roomId)) {
+            return HoldOutcome.NOT_FOUND;
+        }
+        RoomHold hold = existing.get();
+        LocalDate oldStart = hold.getStartDate();
+        LocalDate oldEnd = hold.getEndDate();
+        boolean free;
+        if (end.isBefore(oldStart) || start.isAfter(oldEnd)) {
+            free = isFree(room, start, end);
+        } else {
+            free = (!start.isBefore(oldStart) || isFree(room, start, oldStart.minusDays(1)))
+                    && (!end.isAfter(oldEnd) || isFree(room, oldEnd.plusDays(1), end));
+        }
+        if (!free) {
+            log.warn("modifyHold conflict requestId={} roomId={} {}..{} -> {}..{}", requestId, roomId, oldStart, oldEnd, start, end);
+            metrics.modifyConflicted();
+            return HoldOutcome.CONFLICT;
+        }
+        hold.setStartDate(start);
+        hold.setEndDate(end);
+        roomHoldRepository.save(hold);
+        log.info("modifyHold requestId={} roomId={} {}..{} -> {}..{}", requestId, roomId, oldStart, oldEnd, start, end);
+        metrics.modifySucceeded();
+        return HoldOutcome.HELD;
+    }
+
     @Transactional
     public void releaseHold(Long roomId, String requestId) {
-        roomHoldRepository.findByRequestId(requestId).ifPresent(hold -> {
+        roomHoldRepository.findByRequestId(requestId).ifPresentOrElse(hold -> {
             log.info("releaseHold requestId={} roomId={}", requestId, roomId);
             Room room = hold.getRoom();
             roomHoldRepository.delete(hold);
@@ -107,7 +205,16 @@ public class AvailabilityService {
                 room.setTimesBooked(room.getTimesBooked() - 1);
                 roomRepository.save(room);
             }
-        });
+            metrics.holdReleased();
+        }, metrics::releaseMissed);
+    }
+
+    /**
+     * Holds ending on or after {@code from}, ordered by requestId and starting after {@code afterRequestId}.
+     */
+    @Transactional(readOnly = true)
+    public List<RoomHold> holdsAfter(LocalDate from, String afterRequestId, int size) {
+        return roomHoldRepository.findPageAfter(from, afterRequestId == null ? "" : afterRequestId, PageRequest.ofSize(size));
     }
 
     private boolean isFree(Room room, LocalDate start, LocalDate end) {
@@ -115,6 +222,15 @@ public class AvailabilityService {
                 .findByRoomAndEndDateGreaterThanEqualAndStartDateLessThanEqual(room, start, end)
                 .isEmpty();
     }
-}
 
+    public record HoldRequest(Long roomId, LocalDate start, LocalDate end, String requestId, String bookingId) {
+    }
 
+    public enum HoldOutcome {
+        HELD,
+        // free, but not held because another room of the batch failed
+        AVAILABLE,
+        CONFLICT,
+        NOT_FOUND
+    }
+}
@@ -1,15 +1,28 @@
 package com.mephi.task.hotel.web;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.mephi.task.hotel.service.AvailabilityService;
+import com.mephi.task.hotel.web.dto.AvailabilityRequest;
+import com.mephi.task.hotel.web.dto.BatchAvailabilityRequest;
+import com.mephi.task.hotel.web.dto.BatchAvailabilityResponse;
+import com.mephi.task.hotel.web.dto.HoldDto;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -24,9 +37,58 @@ public class InternalRoomController {
     public void release(@PathVariable Long id, @RequestParam String requestId) {
         availabilityService.releaseHold(id, requestId);
     }
-}
-
-
 
+    /**
+     * Changes the dates of the hold created for {@code requestId}: 200 if moved, 409 if the new days are taken,
+     * 404 if there is no such hold on this room.
+     */
+    @PostMapping("/{id}/modify-hold")
+    public ResponseEntity<Void> modifyHold(@PathVariable Long id, @Valid @RequestBody AvailabilityRequest req) {
+        if (!req.getStartDate().isBefore(req.getEndDate())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return switch (availabilityService.modifyHold(id, req.getRequestId(), req.getStartDate(), req.getEndDate())) {
+            case HELD -> ResponseEntity.ok().build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            default -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+        };
+    }
 
+    /**
+     * Keyset page of holds for reconciliation with booking-service: pass the last requestId of the previous page as
+     * {@code after}. Holds are ordered by requestId in binary order.
+     */
+    @GetMapping("/holds")
+    public List<HoldDto> holds(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(defaultValue = "500") int size) {
+        return availabilityService.holdsAfter(from, after, Math.max(1, Math.min(size, 1000))).stream()
+                .map(h -> {
+                    HoldDto dto = new HoldDto();
+                    dto.setRequestId(h.getRequestId());
+                    dto.setBookingId(h.getBookingId());
+                    dto.setRoomId(h.getRoom().getId());
+                    dto.setStartDate(h.getStartDate());
+                    dto.setEndDate(h.getEndDate());
+                    return dto;
+                })
+                .toList();
+    }
 
+    /**
+     * All-or-nothing hold of several rooms; 409 carries the outcome of every item.
+     */
+    @PostMapping("/confirm-batch")
+    public ResponseEntity<BatchAvailabilityResponse> confirmBatch(@Valid @RequestBody BatchAvailabilityRequest req) {
+        List<AvailabilityService.HoldRequest> holds = req.getItems().stream()
+                .map(i -> new AvailabilityService.HoldRequest(i.getRoomId(), i.getStartDate(), i.getEndDate(), i.getRequestId(), i.getBookingId()))
+                .toList();
+        Map<String, AvailabilityService.HoldOutcome> outcomes = availabilityService.confirmBatch(holds);
+        List<BatchAvailabilityResponse.Result> results = holds.stream()
+                .map(h -> new BatchAvailabilityResponse.Result(h.roomId(), h.requestId(), outcomes.get(h.requestId()).name()))
+                .toList();
+        boolean confirmed = outcomes.values().stream().allMatch(o -> o == AvailabilityService.HoldOutcome.HELD);
+        return ResponseEntity.status(confirmed ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .body(new BatchAvailabilityResponse(confirmed, results));
+    }
+}
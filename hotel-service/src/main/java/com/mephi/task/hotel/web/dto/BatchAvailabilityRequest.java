@@ -0,0 +1,31 @@
+package com.mephi.task.hotel.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BatchAvailabilityRequest {
+    @NotEmpty
+    @Valid
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        @NotNull
+        private Long roomId;
+        @NotNull
+        private LocalDate startDate;
+        @NotNull
+        private LocalDate endDate;
+        @NotBlank
+        private String requestId;
+        @NotBlank
+        private String bookingId;
+    }
+}
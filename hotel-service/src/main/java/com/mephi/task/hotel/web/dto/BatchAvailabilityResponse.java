@@ -0,0 +1,25 @@
+package com.mephi.task.hotel.web.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAvailabilityResponse {
+    private boolean confirmed;
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long roomId;
+        private String requestId;
+        // HELD, AVAILABLE, CONFLICT or NOT_FOUND
+        private String outcome;
+    }
+}
@@ -1,6 +1,8 @@
 package com.mephi.task.hotel;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -19,9 +21,12 @@ import org.springframework.transaction.annotation.Transactional;
 import com.mephi.task.hotel.domain.Hotel;
 import com.mephi.task.hotel.domain.Room;
 import com.mephi.task.hotel.repo.HotelRepository;
+import com.mephi.task.hotel.repo.RoomHoldRepository;
 import com.mephi.task.hotel.repo.RoomRepository;
 import com.mephi.task.hotel.service.AvailabilityService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @SpringBootTest
 class AvailabilityConcurrencyTests {
 
@@ -31,12 +36,17 @@ class AvailabilityConcurrencyTests {
     HotelRepository hotelRepository;
     @Autowired
     RoomRepository roomRepository;
+    @Autowired
+    RoomHoldRepository roomHoldRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
 
     private Room room;
 
     @BeforeEach
     @Transactional
     void setup() {
+        roomHoldRepository.deleteAll();
         roomRepository.deleteAll();
         hotelRepository.deleteAll();
         Hotel h = new Hotel();
@@ -74,9 +84,83 @@ class AvailabilityConcurrencyTests {
         Room reloaded = roomRepository.findById(room.getId()).orElseThrow();
         assertThat(reloaded.getTimesBooked()).isEqualTo(1L);
     }
-}
-
 
+    @Test
+    @DisplayName("Групповое подтверждение: при конфликте одного номера не удерживается ни один")
+    void batch_confirmation_is_all_or_nothing() {
+        LocalDate s = LocalDate.now().plusDays(1);
+        LocalDate e = s.plusDays(2);
+        Room second = new Room();
+        second.setHotel(room.getHotel());
+        second.setNumber("102");
+        second.setAvailable(true);
+        second.setTimesBooked(0L);
+        second = roomRepository.save(second);
+        assertThat(availabilityService.confirmAvailability(room.getId(), s, e, "taken", "b-0")).isTrue();
+
+        Map<String, AvailabilityService.HoldOutcome> outcomes = availabilityService.confirmBatch(List.of(
+                new AvailabilityService.HoldRequest(second.getId(), s, e, "g-1", "b-1"),
+                new AvailabilityService.HoldRequest(room.getId(), s, e, "g-2", "b-2")));
+
+        assertThat(outcomes).containsExactly(
+                Map.entry("g-1", AvailabilityService.HoldOutcome.AVAILABLE),
+                Map.entry("g-2", AvailabilityService.HoldOutcome.CONFLICT));
+        assertThat(roomHoldRepository.findByRequestId("g-1")).isEmpty();
+        assertThat(roomRepository.findById(second.getId()).orElseThrow().getTimesBooked()).isZero();
+
+        Map<String, AvailabilityService.HoldOutcome> retry = availabilityService.confirmBatch(List.of(
+                new AvailabilityService.HoldRequest(second.getId(), s, e, "g-1", "b-1")));
+        assertThat(retry).containsExactly(Map.entry("g-1", AvailabilityService.HoldOutcome.HELD));
+    }
 
+    @Test
+    @DisplayName("Сверка: холды отдаются страницами по requestId, прошедшие отфильтрованы")
+    void holds_are_paged_by_request_id() {
+        LocalDate s = LocalDate.now().plusDays(1);
+        for (String rid : List.of("c", "a", "b")) {
+            assertThat(availabilityService.confirmAvailability(room.getId(), s, s, rid, "1")).isTrue();
+            s = s.plusDays(2);
+        }
+
+        List<String> first = availabilityService.holdsAfter(LocalDate.now(), null, 2).stream()
+                .map(h -> h.getRequestId()).toList();
+        List<String> second = availabilityService.holdsAfter(LocalDate.now(), first.get(1), 2).stream()
+                .map(h -> h.getRequestId()).toList();
+        assertThat(first).containsExactly("a", "b");
+        assertThat(second).containsExactly("c");
+        assertThat(availabilityService.holdsAfter(LocalDate.now().plusYears(1), null, 10)).isEmpty();
+    }
 
+    @Test
+    @DisplayName("Изменение дат холда проверяет только добавленные дни")
+    void modify_hold_checks_only_added_days() {
+        LocalDate s = LocalDate.now().plusDays(10);
+        assertThat(availabilityService.confirmAvailability(room.getId(), s, s.plusDays(3), "mine", "1")).isTrue();
+        assertThat(availabilityService.confirmAvailability(room.getId(), s.plusDays(6), s.plusDays(8), "other", "2")).isTrue();
+        double confirmConflicts = count("hotel.availability.confirmations", "conflict");
+        double modifyConflicts = count("hotel.availability.modifications", "conflict");
+
+        // overlaps its own days and extends by two free days
+        assertThat(availabilityService.modifyHold(room.getId(), "mine", s.minusDays(1), s.plusDays(5)))
+                .isEqualTo(AvailabilityService.HoldOutcome.HELD);
+        // the added day belongs to the other hold
+        assertThat(availabilityService.modifyHold(room.getId(), "mine", s.minusDays(1), s.plusDays(6)))
+                .isEqualTo(AvailabilityService.HoldOutcome.CONFLICT);
+        // shrinking is always possible
+        assertThat(availabilityService.modifyHold(room.getId(), "mine", s, s.plusDays(1)))
+                .isEqualTo(AvailabilityService.HoldOutcome.HELD);
+        assertThat(availabilityService.modifyHold(room.getId(), "missing", s, s.plusDays(1)))
+                .isEqualTo(AvailabilityService.HoldOutcome.NOT_FOUND);
+        // a refused date change is not a refused booking
+        assertThat(count("hotel.availability.modifications", "conflict")).isEqualTo(modifyConflicts + 1);
+        assertThat(count("hotel.availability.confirmations", "conflict")).isEqualTo(confirmConflicts);
+
+        var hold = roomHoldRepository.findByRequestId("mine").orElseThrow();
+        assertThat(hold.getStartDate()).isEqualTo(s);
+        assertThat(hold.getEndDate()).isEqualTo(s.plusDays(1));
+    }
 
+    private double count(String name, String outcome) {
+        return meterRegistry.get(name).tag("outcome", outcome).counter().count();
+    }
+}
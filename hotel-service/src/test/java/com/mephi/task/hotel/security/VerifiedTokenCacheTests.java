@@ -0,0 +1,97 @@
+package com.mephi.task.hotel.security;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VerifiedTokenCacheTests {
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry registry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "test-secret-please-change-32B-min-1234");
+        jwtService.init();
+        registry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(jwtService, registry);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    @Test
+    @DisplayName("Повторная проверка того же токена берётся из кэша, токен без exp принимается, но не кэшируется")
+    void repeated_token_is_served_from_cache() {
+        String token = token("alice", "ADMIN", 3600_000).compact();
+
+        VerifiedTokenCache.VerifiedToken first = cache.verify(token);
+        VerifiedTokenCache.VerifiedToken second = cache.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.username()).isEqualTo("alice");
+        assertThat(first.authorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(result("hit")).isEqualTo(1);
+        assertThat(result("miss")).isEqualTo(1);
+
+        String noExpiry = Jwts.builder().setSubject("bob").signWith(jwtService.getKey()).compact();
+        assertThat(cache.verify(noExpiry).authorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(cache.verify(noExpiry)).isNotNull();
+        assertThat(result("miss")).isEqualTo(3);
+        assertThat(size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Закэшированный токен отклоняется после exp, а при заполнении кэша первыми вытесняются просроченные")
+    void expired_entries_are_rejected_and_evicted_first() throws InterruptedException {
+        String shortLived = token("alice", "USER", 1000).compact();
+        String longLived = token("bob", "USER", 3600_000).compact();
+        long expiresAt = cache.verify(shortLived).expiresAt();
+        cache.verify(longLived);
+
+        Thread.sleep(Math.max(0, expiresAt - System.currentTimeMillis()) + 50);
+        // the cache is full: the expired entry makes room, the valid one stays
+        cache.verify(token("carol", "USER", 3600_000).compact());
+        assertThat(size()).isEqualTo(2);
+        cache.verify(longLived);
+        assertThat(result("hit")).isEqualTo(1);
+
+        assertThatThrownBy(() -> cache.verify(shortLived)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    @DisplayName("Размер кэша ограничен настройкой max-size")
+    void cache_size_is_bounded() {
+        for (int i = 0; i < 5; i++) {
+            cache.verify(token("user" + i, "USER", 3600_000).compact());
+        }
+
+        assertThat(size()).isLessThanOrEqualTo(2);
+    }
+
+    private JwtBuilder token(String subject, String role, long ttlMillis) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("role", role)
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(jwtService.getKey());
+    }
+
+    private double size() {
+        return registry.get("security.jwt.cache.size").gauge().value();
+    }
+
+    private double result(String result) {
+        return registry.get("security.jwt.cache").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mephi.task.hotel.service;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.mephi.task.hotel.domain.Hotel;
+import com.mephi.task.hotel.domain.Room;
+import com.mephi.task.hotel.repo.HotelRepository;
+import com.mephi.task.hotel.repo.RoomHoldRepository;
+import com.mephi.task.hotel.repo.RoomRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "eureka.client.enabled=false",
+        "spring.cloud.discovery.enabled=false"
+})
+class AvailabilityMetricsTests {
+
+    @Autowired
+    AvailabilityService availabilityService;
+    @Autowired
+    HotelRepository hotelRepository;
+    @Autowired
+    RoomRepository roomRepository;
+    @Autowired
+    RoomHoldRepository roomHoldRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        roomHoldRepository.deleteAll();
+        roomRepository.deleteAll();
+        hotelRepository.deleteAll();
+
+        Hotel h = new Hotel();
+        h.setName("Metrics Hotel");
+        h.setAddress("Addr");
+        h = hotelRepository.save(h);
+
+        Room r = new Room();
+        r.setHotel(h);
+        r.setNumber("301");
+        r.setAvailable(true);
+        r.setTimesBooked(0L);
+        room = roomRepository.save(r);
+    }
+
+    @Test
+    @DisplayName("Метрики: успешное подтверждение, идемпотентный повтор, конфликт и освобождение учитываются счётчиками")
+    void confirm_and_release_outcomes_are_counted() {
+        double success = confirmations("success");
+        double idempotent = confirmations("idempotent");
+        double conflict = confirmations("conflict");
+        double released = releases("released");
+        long lockWaits = meterRegistry.get("hotel.availability.lock.wait").timer().count();
+
+        LocalDate s = LocalDate.now().plusDays(1);
+        LocalDate e = s.plusDays(2);
+
+        assertThat(availabilityService.confirmAvailability(room.getId(), s, e, "m-req-1", "m-b-1")).isTrue();
+        assertThat(availabilityService.confirmAvailability(room.getId(), s, e, "m-req-1", "m-b-1")).isTrue();
+        assertThat(availabilityService.confirmAvailability(room.getId(), s, e, "m-req-2", "m-b-2")).isFalse();
+        availabilityService.releaseHold(room.getId(), "m-req-1");
+
+        assertThat(confirmations("success")).isEqualTo(success + 1);
+        assertThat(confirmations("idempotent")).isEqualTo(idempotent + 1);
+        assertThat(confirmations("conflict")).isEqualTo(conflict + 1);
+        assertThat(releases("released")).isEqualTo(released + 1);
+        assertThat(meterRegistry.get("hotel.availability.lock.wait").timer().count()).isEqualTo(lockWaits + 2);
+    }
+
+    private double confirmations(String outcome) {
+        return meterRegistry.get("hotel.availability.confirmations").tag("outcome", outcome).counter().count();
+    }
+
+    private double releases(String outcome) {
+        return meterRegistry.get("hotel.availability.releases").tag("outcome", outcome).counter().count();
+    }
+}
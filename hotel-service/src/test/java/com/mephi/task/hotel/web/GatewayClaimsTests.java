@@ -0,0 +1,70 @@
+package com.mephi.task.hotel.web;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.mephi.task.hotel.security.GatewayClaimsVerifier;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "eureka.client.enabled=false",
+        "spring.cloud.discovery.enabled=false",
+        "security.gateway.trust-claims=true",
+        "security.gateway.secret=test-gateway-secret-at-least-32-bytes!"
+})
+class GatewayClaimsTests {
+
+    /**
+     * Signature api-gateway produces for the claims below with the secret above, pinned in its ClaimsSignerTests.
+     */
+    private static final String SIGNATURE = "Ob_ONPXEK_kENZ3W4mMwxbXRV4-nKyw12cuvDoE9ySQ";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Доверенный режим: подписанные api-gateway заголовки аутентифицируют без JWT, подделанные отклоняются")
+    void gateway_signed_claims_are_trusted() throws Exception {
+        mockMvc.perform(signed(get("/api/hotels"), "USER"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/hotels"))
+                .andExpect(status().isForbidden());
+
+        // роль подменена после подписи
+        mockMvc.perform(signed(post("/api/hotels"), "ADMIN")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"h\",\"address\":\"a\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Доверенный режим без секрета или с коротким секретом не даёт приложению запуститься")
+    void trust_mode_requires_a_long_enough_secret() {
+        assertThatThrownBy(() -> new GatewayClaimsVerifier(true, "")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new GatewayClaimsVerifier(true, "too-short-secret"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static MockHttpServletRequestBuilder signed(MockHttpServletRequestBuilder request, String role) {
+        return request
+                .header("X-Auth-Subject", "alice+smith")
+                .header("X-Auth-Role", role)
+                .header("X-Auth-User-Id", "7")
+                .header("X-Auth-Version", "2")
+                .header("X-Auth-Expires", "4102444800000")
+                .header("X-Auth-Signature", SIGNATURE);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mephi.task.hotel.web;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.mephi.task.hotel.security.JwtService;
+import io.jsonwebtoken.Jwts;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "eureka.client.enabled=false",
+        "spring.cloud.discovery.enabled=false"
+})
+class InternalRoomControllerTests {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    JwtService jwtService;
+
+    @Test
+    @DisplayName("Внутренние эндпоинты: список holds доступен только с токеном SERVICE или ADMIN")
+    void holds_require_service_or_admin_role() throws Exception {
+        String from = LocalDate.now().toString();
+
+        mockMvc.perform(get("/internal/rooms/holds").param("from", from))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/internal/rooms/holds").param("from", from)
+                        .header("Authorization", "Bearer " + token("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/internal/rooms/holds").param("from", from)
+                        .header("Authorization", "Bearer " + token("SERVICE")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/internal/rooms/holds").param("from", from)
+                        .header("Authorization", "Bearer " + token("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Внутренние эндпоинты: изменение hold с токеном пользователя отклоняется")
+    void modify_hold_rejects_user_token() throws Exception {
+        String body = "{\"startDate\":\"" + LocalDate.now().plusDays(1) + "\",\"endDate\":\"" + LocalDate.now().plusDays(2)
+                + "\",\"requestId\":\"r-1\",\"bookingId\":\"1\"}";
+
+        mockMvc.perform(post("/internal/rooms/1/modify-hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + token("USER"))
+                        .content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/internal/rooms/1/modify-hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer " + token("SERVICE"))
+                        .content(body))
+                .andExpect(status().isNotFound());
+    }
+
+    private String token(String role) {
+        return Jwts.builder()
+                .setSubject("booking-service")
+                .claim("role", role)
+                .signWith(jwtService.getKey())
+                .compact();
+    }
+}
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mephi.task.hotel.domain.Hotel;
 import com.mephi.task.hotel.domain.Room;
 import com.mephi.task.hotel.domain.RoomHold;
+import com.mephi.task.hotel.monitoring.QueryCounter;
 import com.mephi.task.hotel.repo.HotelRepository;
 import com.mephi.task.hotel.repo.RoomHoldRepository;
 import com.mephi.task.hotel.repo.RoomRepository;
@@ -102,6 +103,7 @@ class RoomControllerStatsTests {
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isOk())
                 .andReturn().getResponse().getContentAsString();
+        QueryCounter.assertQueries(3);
 
         var list = objectMapper.readValue(json, new TypeReference<java.util.List<RoomStatsDto>>() {});
         assertThat(list).hasSize(1);